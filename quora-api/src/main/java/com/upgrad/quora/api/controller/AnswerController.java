@@ -1,16 +1,29 @@
 package com.upgrad.quora.api.controller;
 
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.upgrad.quora.api.model.*;
 import com.upgrad.quora.service.business.AnswerBusinessService;
+import com.upgrad.quora.service.common.Page;
+import com.upgrad.quora.service.common.TotalCount;
+import com.upgrad.quora.service.dto.AnswerSummary;
+import com.upgrad.quora.service.dto.BulkItemResult;
 import com.upgrad.quora.service.entity.Answer;
+import com.upgrad.quora.service.entity.Question;
 import com.upgrad.quora.service.exception.AnswerNotFoundException;
 import com.upgrad.quora.service.exception.AuthorizationFailedException;
+import com.upgrad.quora.service.exception.InvalidBulkRequestException;
+import com.upgrad.quora.service.exception.InvalidPaginationException;
 import com.upgrad.quora.service.exception.InvalidQuestionException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
@@ -19,9 +32,19 @@ import java.util.UUID;
 
 @RestController
 public class AnswerController {
+
+    private static final String NEXT_CURSOR_HEADER = "next-cursor";
+
+    private static final String TOTAL_COUNT_HEADER = "total-count";
+
+    private static final String TOTAL_COUNT_ESTIMATED_HEADER = "total-count-estimated";
+
     @Autowired
     private AnswerBusinessService answerBusinessService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * This method is used for the corresponding question which
      * is to be answered in the database
@@ -49,6 +72,48 @@ public class AnswerController {
         return new ResponseEntity<AnswerResponse>(answerResponse, HttpStatus.CREATED);
     }
 
+    /**
+     * This method is used to post a list of answers to the corresponding question in one request
+     * The user is validated and the question looked up once for all the answers, which are created in a single
+     * transaction. Each item of the response carries the uuid of the created answer, in the order of the request.
+     * With continueOnError=true the items which are not valid are reported in their response item instead of failing the request
+     *
+     * @param answerRequests  Contains the attributes of each answer
+     * @param questionId      To get respective question using unique key call questionId
+     * @param authorization   holds the Bearer access token for authenticating the user.
+     * @param continueOnError true to create the valid answers when some of the items are not valid
+     * @return the result of each item along with httpStatus
+     * @throws AuthorizationFailedException If the access token provided by the user does not exist
+     *                                      in the database, If the user has signed out
+     * @throws InvalidQuestionException     If the question uuid entered by the user whose answers
+     *                                      are to be posted does not exist in the database
+     * @throws InvalidBulkRequestException  If the number of items is out of range, or an item is not valid
+     *                                      while continueOnError is not set
+     */
+    @RequestMapping(method = RequestMethod.POST, path = "/question/{questionId}/answer/bulk", consumes = MediaType.APPLICATION_JSON_UTF8_VALUE, produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public ResponseEntity<List<AnswerBulkItemResponse>> createAnswers(@RequestBody final List<AnswerRequest> answerRequests,
+                                                                      @PathVariable("questionId") final String questionId,
+                                                                      @RequestHeader("authorization") final String authorization,
+                                                                      @RequestParam(value = "continueOnError", required = false, defaultValue = "false") final boolean continueOnError)
+            throws AuthorizationFailedException, InvalidQuestionException, InvalidBulkRequestException {
+        final List<String> answers = new ArrayList<>(answerRequests.size());
+        for (AnswerRequest answerRequest : answerRequests) {
+            answers.add(answerRequest == null ? null : answerRequest.getAnswer());
+        }
+        final List<BulkItemResult> results = answerBusinessService.createAnswers(answers, questionId, authorization, continueOnError);
+        final List<AnswerBulkItemResponse> bulkItemResponses = new ArrayList<>(results.size());
+        for (BulkItemResult result : results) {
+            final AnswerBulkItemResponse bulkItemResponse = new AnswerBulkItemResponse().index(result.getIndex());
+            if (result.isCreated()) {
+                bulkItemResponse.id(result.getUuid()).status("ANSWER CREATED");
+            } else {
+                bulkItemResponse.status("ANSWER NOT CREATED").code(result.getCode()).message(result.getMessage());
+            }
+            bulkItemResponses.add(bulkItemResponse);
+        }
+        return new ResponseEntity<List<AnswerBulkItemResponse>>(bulkItemResponses, HttpStatus.CREATED);
+    }
+
     /**
      * This method is used to edit the content of a specfic answer in a database
      * Note,only the owner of the answer can edit the answer
@@ -68,8 +133,8 @@ public class AnswerController {
             throws AnswerNotFoundException, AuthorizationFailedException {
         final Answer answer = new Answer();
         answer.setAns(answerEditRequest.getContent());
-        final Answer editAnswerEntity = answerBusinessService.editAnswerContent(answer, answerId, authorization);
-        AnswerEditResponse answerEditResponse = new AnswerEditResponse().id(editAnswerEntity.getUuid()).status("ANSWER EDITED");
+        final String editedAnswerUUID = answerBusinessService.editAnswerContent(answer, answerId, authorization);
+        AnswerEditResponse answerEditResponse = new AnswerEditResponse().id(editedAnswerUUID).status("ANSWER EDITED");
         return new ResponseEntity<AnswerEditResponse>(answerEditResponse, HttpStatus.OK);
     }
 
@@ -95,28 +160,91 @@ public class AnswerController {
     }
 
     /**
-     * This method retrieves all the answers for a specific Question
+     * This method retrieves a page of the answers for a specific Question
      * after validating the user authorization token
+     * The answers are sorted by date, oldest first unless sort=newest is passed. The next-cursor header carries the
+     * after parameter for the next page and is left out on the last page
+     * With count=true the total-count header carries the number of answers to the question, the total-count-estimated
+     * header being set when the question has too many answers to be counted exactly
+     * The response carries the entity tag of the answer listing, a request whose If-None-Match matches it is answered
+     * with 304 Not Modified without loading the answers
      *
      * @param questionId    The UUID of the question for which answers are to be retrieved
      * @param authorization holds the Bearer access token for authenticating the user
-     * @return The question content and the list of all answers with respective uuid and answer content
+     * @param limit         The maximum number of answers in the page
+     * @param after         The next-cursor returned with the previous page, absent for the first page
+     * @param sort          The sort order of the answers, newest or oldest
+     * @param count         true to return the number of answers to the question in the total-count header
+     * @param webRequest    The web request checked against the entity tag
+     * @return The question content and the list of the answers in the requested page with respective uuid and answer content, nothing if not modified
      * @throws AuthorizationFailedException If the token is not present in DB or user already logged out
      * @throws InvalidQuestionException     If the Question with the uuid passed doesn't exist in DB
+     * @throws InvalidPaginationException   If the limit is out of range, the cursor or the sort order is not valid
      */
     @RequestMapping(path = "/answer/all/{questionId}", method = RequestMethod.GET)
     public ResponseEntity<List<AnswerDetailsResponse>> getAllAnswersToQuestion(
-            @PathVariable("questionId") final String questionId, @RequestHeader("authorization") final String authorization)
-            throws AuthorizationFailedException, InvalidQuestionException {
-        final List<Answer> allAnswersToQuestion = answerBusinessService.getAllAnswersToQuestion(questionId, authorization);
+            @PathVariable("questionId") final String questionId, @RequestHeader("authorization") final String authorization,
+            @RequestParam(value = "limit", required = false) final Integer limit,
+            @RequestParam(value = "after", required = false) final String after,
+            @RequestParam(value = "sort", required = false) final String sort,
+            @RequestParam(value = "count", required = false, defaultValue = "false") final boolean count,
+            final WebRequest webRequest)
+            throws AuthorizationFailedException, InvalidQuestionException, InvalidPaginationException {
+        // Taken before the question is looked up, an edit of the question committed meanwhile changes the tag
+        final String eTag = answerBusinessService.getAllAnswersToQuestionTag(questionId);
+        final Question question = answerBusinessService.getQuestionForAnswerListing(questionId, authorization);
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        final Page<AnswerSummary> answersPage = answerBusinessService.getAnswersToQuestion(question.getId(), limit, after, sort);
         List<AnswerDetailsResponse> answerDetailsResponseList = new ArrayList<>();
-        for (Answer answer : allAnswersToQuestion) {
+        for (AnswerSummary answer : answersPage.getContent()) {
             AnswerDetailsResponse answerDetailsResponse = new AnswerDetailsResponse();
             answerDetailsResponse.id(answer.getUuid())
-                    .questionContent(answer.getQuestion().getContent())
+                    .questionContent(question.getContent())
                     .answerContent(answer.getAns());
             answerDetailsResponseList.add(answerDetailsResponse);
         }
-        return new ResponseEntity<List<AnswerDetailsResponse>>(answerDetailsResponseList, HttpStatus.OK);
+        final HttpHeaders headers = new HttpHeaders();
+        if (answersPage.hasNext()) {
+            headers.add(NEXT_CURSOR_HEADER, answersPage.getNextCursor().encode());
+        }
+        if (count) {
+            final TotalCount totalCount = answerBusinessService.countAnswersToQuestion(question.getId());
+            headers.add(TOTAL_COUNT_HEADER, String.valueOf(totalCount.getValue()));
+            if (!totalCount.isExact()) {
+                headers.add(TOTAL_COUNT_ESTIMATED_HEADER, "true");
+            }
+        }
+        return new ResponseEntity<List<AnswerDetailsResponse>>(answerDetailsResponseList, headers, HttpStatus.OK);
+    }
+
+    /**
+     * This method streams all the answers posted to the question as a JSON array
+     * The answers are read in chunks and written out chunk by chunk, so neither the list of answers nor the list of
+     * responses is held in memory, and no database transaction stays open while the client reads. Selected with the stream=true parameter
+     *
+     * @param questionId    The uuid of the question whose answers are to be streamed
+     * @param authorization holds the Bearer access token for authenticating the user
+     * @return The streamed JSON array of the answers with respective uuid, question content and answer content
+     * @throws AuthorizationFailedException If the token is not present in DB or user already logged out
+     * @throws InvalidQuestionException     If the Question with the uuid passed doesn't exist in DB
+     */
+    @RequestMapping(path = "/answer/all/{questionId}", method = RequestMethod.GET, params = "stream=true", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllAnswersToQuestion(
+            @PathVariable("questionId") final String questionId, @RequestHeader("authorization") final String authorization)
+            throws AuthorizationFailedException, InvalidQuestionException {
+        final Question question = answerBusinessService.getQuestionForAnswerListing(questionId, authorization);
+        final Integer questionDbId = question.getId();
+        final String questionContent = question.getContent();
+        final StreamingResponseBody responseBody = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                answerBusinessService.streamAllAnswersToQuestion(questionDbId, answer -> generator.writeObject(
+                        new AnswerDetailsResponse().id(answer.getUuid()).questionContent(questionContent).answerContent(answer.getAns())));
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON_UTF8).body(responseBody);
     }
 }
@@ -1,7 +1,7 @@
 package com.upgrad.quora.api.controller;
 
 import com.upgrad.quora.service.business.UserBusinessService;
-import com.upgrad.quora.service.entity.User;
+import com.upgrad.quora.service.dto.UserProfile;
 import com.upgrad.quora.service.exception.AuthorizationFailedException;
 import com.upgrad.quora.service.exception.UserNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,6 +9,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import com.upgrad.quora.api.model.UserDetailsResponse;
 
 
@@ -26,8 +27,13 @@ public class CommonController {
     private UserBusinessService userBusinessService;
 
     @RequestMapping(method = RequestMethod.GET, path = "/userprofile/{userId}", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-    public ResponseEntity<UserDetailsResponse> getUser(@PathVariable("userId") final String userId, @RequestHeader("authorization") final String authorization) throws AuthorizationFailedException, UserNotFoundException {
-        final User user = userBusinessService.getUser(userId, authorization);
+    public ResponseEntity<UserDetailsResponse> getUser(@PathVariable("userId") final String userId, @RequestHeader("authorization") final String authorization,
+                                                       final WebRequest webRequest) throws AuthorizationFailedException, UserNotFoundException {
+        // A client already holding the current version of the profile is answered with 304 Not Modified without loading the user
+        if (webRequest.checkNotModified(userBusinessService.getUserTag(userId, authorization))) {
+            return null;
+        }
+        final UserProfile user = userBusinessService.getUser(userId, authorization);
 
         // mapping all the user details.
 
@@ -1,20 +1,34 @@
 package com.upgrad.quora.api.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.upgrad.quora.api.model.*;
 import com.upgrad.quora.service.business.QuestionBusinessService;
+import com.upgrad.quora.service.common.Page;
+import com.upgrad.quora.service.dto.AnswerSummary;
+import com.upgrad.quora.service.dto.BulkItemResult;
+import com.upgrad.quora.service.dto.QuestionSummary;
+import com.upgrad.quora.service.dto.QuestionWithAnswers;
 import com.upgrad.quora.service.entity.Question;
 import com.upgrad.quora.service.exception.AuthorizationFailedException;
+import com.upgrad.quora.service.exception.InvalidBulkRequestException;
+import com.upgrad.quora.service.exception.InvalidPaginationException;
 import com.upgrad.quora.service.exception.InvalidQuestionException;
 import com.upgrad.quora.service.exception.UserNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -23,9 +37,14 @@ import java.util.UUID;
 @Controller
 public class QuestionController {
 
+    private static final String NEXT_CURSOR_HEADER = "next-cursor";
+
     @Autowired
     private QuestionBusinessService questionBusinessService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
 
     /**
      * This method is used to create a new question
@@ -50,19 +69,124 @@ public class QuestionController {
     }
 
     /**
-     * This method validates the user session and if active pulls all the questions from the database
+     * This method is used to create a list of questions in one request
+     * It uses Bearer token to validate the user once for all the questions, which are created in a single transaction
+     * Each item of the response carries the uuid of the created question, in the order of the request. With
+     * continueOnError=true the items which are not valid are reported in their response item instead of failing the request
+     *
+     * @param questionRequests Contains the attributes of each question
+     * @param authorization    Holds the Bearer access token for authenticating the user
+     * @param continueOnError  true to create the valid questions when some of the items are not valid
+     * @return ResponseEntity with the result of each item and status
+     * @throws AuthorizationFailedException If the token is not present in DB or user already logged out
+     * @throws InvalidBulkRequestException  If the number of items is out of range, or an item is not valid
+     *                                      while continueOnError is not set
+     */
+    @RequestMapping(method = RequestMethod.POST, path = "/question/bulk", consumes = MediaType.APPLICATION_JSON_UTF8_VALUE, produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public ResponseEntity<List<QuestionBulkItemResponse>> createQuestions(@RequestBody final List<QuestionRequest> questionRequests,
+                                                                          @RequestHeader("authorization") final String authorization,
+                                                                          @RequestParam(value = "continueOnError", required = false, defaultValue = "false") final boolean continueOnError)
+            throws AuthorizationFailedException, InvalidBulkRequestException {
+        final List<String> contents = new ArrayList<>(questionRequests.size());
+        for (QuestionRequest questionRequest : questionRequests) {
+            contents.add(questionRequest == null ? null : questionRequest.getContent());
+        }
+        final List<BulkItemResult> results = questionBusinessService.createQuestions(contents, authorization, continueOnError);
+        final List<QuestionBulkItemResponse> bulkItemResponses = new ArrayList<>(results.size());
+        for (BulkItemResult result : results) {
+            final QuestionBulkItemResponse bulkItemResponse = new QuestionBulkItemResponse().index(result.getIndex());
+            if (result.isCreated()) {
+                bulkItemResponse.id(result.getUuid()).status("QUESTION CREATED");
+            } else {
+                bulkItemResponse.status("QUESTION NOT CREATED").code(result.getCode()).message(result.getMessage());
+            }
+            bulkItemResponses.add(bulkItemResponse);
+        }
+        return new ResponseEntity<List<QuestionBulkItemResponse>>(bulkItemResponses, HttpStatus.CREATED);
+    }
+
+    /**
+     * This method validates the user session and if active pulls a page of the questions from the database
      * Populates the uuid and content of each question posted earlier in the application and sends in the response
+     * The questions are ordered from the latest to the oldest, the next-cursor header carries the value of the after
+     * parameter for the next page and is left out on the last page
+     * The response carries the entity tag of the question feed, a request whose If-None-Match matches it is answered
+     * with 304 Not Modified without loading the questions
      * If session token is invalid, then throws the error message of Authorization failure
      *
      * @param authorization holds the Bearer access token for authenticating the user
-     * @return The List of question details(uuid, question content) present in the database
+     * @param limit         The maximum number of questions in the page
+     * @param after         The next-cursor returned with the previous page, absent for the first page
+     * @param webRequest    The web request checked against the entity tag
+     * @return The List of question details(uuid, question content) in the requested page, nothing if not modified
      * @throws AuthorizationFailedException If the token is not present in DB or user already logged out
+     * @throws InvalidPaginationException   If the limit is out of range or the cursor is not valid
      */
     @RequestMapping(method = RequestMethod.GET, path = "/question/all")
-    public ResponseEntity<List<QuestionDetailsResponse>> getAllQuestions(@RequestHeader("authorization") final String authorization)
+    public ResponseEntity<List<QuestionDetailsResponse>> getAllQuestions(@RequestHeader("authorization") final String authorization,
+                                                                         @RequestParam(value = "limit", required = false) final Integer limit,
+                                                                         @RequestParam(value = "after", required = false) final String after,
+                                                                         final WebRequest webRequest)
+            throws AuthorizationFailedException, InvalidPaginationException {
+        if (webRequest.checkNotModified(questionBusinessService.getAllQuestionsTag(authorization))) {
+            return null;
+        }
+        final Page<QuestionSummary> questionsPage = questionBusinessService.getAllQuestions(authorization, limit, after);
+        final HttpHeaders headers = new HttpHeaders();
+        if (questionsPage.hasNext()) {
+            headers.add(NEXT_CURSOR_HEADER, questionsPage.getNextCursor().encode());
+        }
+        return new ResponseEntity<List<QuestionDetailsResponse>>(toQuestionDetailsResponses(questionsPage.getContent()), headers, HttpStatus.OK);
+    }
+
+    /**
+     * This method validates the user session and if active searches the questions whose content matches
+     * the words of the search text, best match first
+     * If session token is invalid, then throws the error message of Authorization failure
+     *
+     * @param authorization holds the Bearer access token for authenticating the user
+     * @param searchText    The plain text to search for in the question content
+     * @param operator      and to match the questions containing all the words, or to match the ones containing any of them
+     * @param limit         The maximum number of questions in the page
+     * @param offset        The number of best matching questions to skip
+     * @return The List of question details(uuid, question content) of the matching questions
+     * @throws AuthorizationFailedException If the token is not present in DB or user already logged out
+     * @throws InvalidPaginationException   If the limit or the offset is out of range
+     */
+    @RequestMapping(method = RequestMethod.GET, path = "/question/search")
+    public ResponseEntity<List<QuestionDetailsResponse>> searchQuestions(@RequestHeader("authorization") final String authorization,
+                                                                         @RequestParam("q") final String searchText,
+                                                                         @RequestParam(value = "operator", required = false, defaultValue = "and") final String operator,
+                                                                         @RequestParam(value = "limit", required = false) final Integer limit,
+                                                                         @RequestParam(value = "offset", required = false) final Integer offset)
+            throws AuthorizationFailedException, InvalidPaginationException {
+        final List<QuestionSummary> matchingQuestions = questionBusinessService.searchQuestions(authorization, searchText,
+                !"or".equalsIgnoreCase(operator), limit, offset);
+        return getQuestionDetailsResponse(matchingQuestions);
+    }
+
+    /**
+     * This method validates the user session and if active streams all the questions, latest first, as a JSON array
+     * The questions are read in chunks and written out chunk by chunk, so neither the list of questions nor the list of
+     * responses is held in memory, and no database transaction stays open while the client reads. Selected with the stream=true parameter
+     *
+     * @param authorization holds the Bearer access token for authenticating the user
+     * @return The streamed JSON array of question details(uuid, question content)
+     * @throws AuthorizationFailedException If the token is not present in DB or user already logged out
+     */
+    @RequestMapping(method = RequestMethod.GET, path = "/question/all", params = "stream=true", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllQuestions(@RequestHeader("authorization") final String authorization)
             throws AuthorizationFailedException {
-        final List<Question> allQuestions = questionBusinessService.getAllQuestions(authorization);
-        return getQuestionDetailsResponse(allQuestions);
+        questionBusinessService.validateAllQuestionsStreaming(authorization);
+        final StreamingResponseBody responseBody = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                questionBusinessService.streamAllQuestions(question -> generator.writeObject(
+                        new QuestionDetailsResponse().id(question.getUuid()).content(question.getContent())));
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON_UTF8).body(responseBody);
     }
 
     /**
@@ -70,17 +194,28 @@ public class QuestionController {
      * setting the uuid and the content of each question. Add the Http Response code so that this method
      * return value can be used to return in the corresponding request mapped methods
      *
-     * @param allQuestions The List of Questions retrieved from the Database to populate the responses
+     * @param allQuestions The summaries of the Questions retrieved from the Database to populate the responses
      * @return ResponseEntity with the required question details populated and the HTTP Status added
      */
-    private ResponseEntity<List<QuestionDetailsResponse>> getQuestionDetailsResponse(List<Question> allQuestions) {
+    private ResponseEntity<List<QuestionDetailsResponse>> getQuestionDetailsResponse(List<QuestionSummary> allQuestions) {
+        return new ResponseEntity<List<QuestionDetailsResponse>>(toQuestionDetailsResponses(allQuestions), HttpStatus.OK);
+    }
+
+    /**
+     * This method takes the list of question as input and populates the corresponding response objects
+     * setting the uuid and the content of each question
+     *
+     * @param questions The summaries of the Questions retrieved from the Database to populate the responses
+     * @return The question details of each question
+     */
+    private List<QuestionDetailsResponse> toQuestionDetailsResponses(List<QuestionSummary> questions) {
         List<QuestionDetailsResponse> allQuesDetailsResponse = new ArrayList<>();
-        for (Question question : allQuestions) {
+        for (QuestionSummary question : questions) {
             QuestionDetailsResponse questionDetailsResponse = new QuestionDetailsResponse();
             questionDetailsResponse.id(question.getUuid()).content(question.getContent());
             allQuesDetailsResponse.add(questionDetailsResponse);
         }
-        return new ResponseEntity<List<QuestionDetailsResponse>>(allQuesDetailsResponse, HttpStatus.OK);
+        return allQuesDetailsResponse;
     }
     
     /**
@@ -101,11 +236,55 @@ public class QuestionController {
             throws InvalidQuestionException, AuthorizationFailedException {
         final Question question = new Question();
         question.setContent(questionEditRequest.getContent());
-        final Question editQuestionEntity = questionBusinessService.editQuestionContent(question, questionId, authorization);
-        QuestionEditResponse questionEditResponse = new QuestionEditResponse().id(editQuestionEntity.getUuid()).status("QUESTION EDITED");
+        final String editedQuestionUUID = questionBusinessService.editQuestionContent(question, questionId, authorization);
+        QuestionEditResponse questionEditResponse = new QuestionEditResponse().id(editedQuestionUUID).status("QUESTION EDITED");
         return new ResponseEntity<QuestionEditResponse>(questionEditResponse, HttpStatus.OK);
     }
 
+    /**
+     * This method fetches a question along with the first page of its answers, for the page of the question
+     * to be rendered from a single request instead of looking up the question and then listing its answers
+     * The answers are sorted by date, oldest first unless sort=newest is passed. The next-cursor header carries the
+     * after parameter of /answer/all/{questionId} for the next page and is left out on the last page
+     * The response carries the entity tag of the question along with its answers, a request whose If-None-Match
+     * matches it is answered with 304 Not Modified
+     *
+     * @param questionId    The UUID of the question to be retrieved
+     * @param authorization holds the Bearer access token for authenticating the user
+     * @param limit         The maximum number of answers in the page
+     * @param sort          The sort order of the answers, newest or oldest
+     * @param webRequest    The web request checked against the entity tag
+     * @return The question details(uuid, question content) and the first page of its answers, nothing if not modified
+     * @throws AuthorizationFailedException If the token is not present in DB or user already logged out
+     * @throws InvalidQuestionException     If the Question with the uuid passed doesn't exist in DB
+     * @throws InvalidPaginationException   If the limit is out of range or the sort order is not valid
+     */
+    @RequestMapping(method = RequestMethod.GET, path = "/question/{questionId}/full")
+    public ResponseEntity<QuestionWithAnswersResponse> getQuestionWithAnswers(
+            @PathVariable("questionId") final String questionId, @RequestHeader("authorization") final String authorization,
+            @RequestParam(value = "limit", required = false) final Integer limit,
+            @RequestParam(value = "sort", required = false) final String sort,
+            final WebRequest webRequest)
+            throws AuthorizationFailedException, InvalidQuestionException, InvalidPaginationException {
+        // Checked before the question is looked up, a change committed meanwhile changes the tag
+        if (webRequest.checkNotModified(questionBusinessService.getQuestionWithAnswersTag(questionId, authorization))) {
+            return null;
+        }
+        final QuestionWithAnswers questionWithAnswers = questionBusinessService.getQuestionWithAnswers(questionId, authorization, limit, sort);
+        final QuestionSummary question = questionWithAnswers.getQuestion();
+        final Page<AnswerSummary> answersPage = questionWithAnswers.getAnswers();
+        final QuestionWithAnswersResponse questionWithAnswersResponse = new QuestionWithAnswersResponse()
+                .id(question.getUuid()).content(question.getContent()).answers(new ArrayList<>());
+        for (AnswerSummary answer : answersPage.getContent()) {
+            questionWithAnswersResponse.addAnswersItem(new QuestionAnswerResponse().id(answer.getUuid()).answerContent(answer.getAns()));
+        }
+        final HttpHeaders headers = new HttpHeaders();
+        if (answersPage.hasNext()) {
+            headers.add(NEXT_CURSOR_HEADER, answersPage.getNextCursor().encode());
+        }
+        return new ResponseEntity<QuestionWithAnswersResponse>(questionWithAnswersResponse, headers, HttpStatus.OK);
+    }
+
     /**
      * This method fetches all the questions posted by a particular user matched
      * by the userId from the DB
@@ -124,7 +303,7 @@ public class QuestionController {
     public ResponseEntity<List<QuestionDetailsResponse>> getAllQuestionsByUser(
             @PathVariable("userId") final String userId, @RequestHeader final String authorization)
             throws AuthorizationFailedException, UserNotFoundException {
-        List<Question> allQuestionsByUser = questionBusinessService.getAllQuestionsByUser(userId, authorization);
+        List<QuestionSummary> allQuestionsByUser = questionBusinessService.getAllQuestionsByUser(userId, authorization);
         return getQuestionDetailsResponse(allQuestionsByUser);
     }
 
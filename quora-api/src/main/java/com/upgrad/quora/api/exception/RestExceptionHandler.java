@@ -4,6 +4,7 @@ import com.upgrad.quora.api.model.ErrorResponse;
 import com.upgrad.quora.service.common.GenericErrorCode;
 import com.upgrad.quora.service.common.UnexpectedException;
 import com.upgrad.quora.service.exception.*;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -93,6 +94,36 @@ public class RestExceptionHandler {
         );
     }
 
+    /**
+     * Global Exception handler for Invalid Pagination failures
+     * Handles the exception and sends back the user/client a user friendly message along with HTTP Status code
+     *
+     * @param exe     The InvalidPaginationException Failure Exception occurred in the application
+     * @param request The web request information if any to be used while framing the response
+     * @return The Error Response consisting of the Http status code and an error message
+     */
+    @ExceptionHandler(InvalidPaginationException.class)
+    public ResponseEntity<ErrorResponse> invalidPaginationException(InvalidPaginationException exe, WebRequest request) {
+        return new ResponseEntity<ErrorResponse>(
+                new ErrorResponse().code(exe.getCode()).message(exe.getErrorMessage()), HttpStatus.BAD_REQUEST
+        );
+    }
+
+    /**
+     * Global Exception handler for Invalid Bulk Request failures
+     * Handles the exception and sends back the user/client a user friendly message along with HTTP Status code
+     *
+     * @param exe     The InvalidBulkRequestException Failure Exception occurred in the application
+     * @param request The web request information if any to be used while framing the response
+     * @return The Error Response consisting of the Http status code and an error message
+     */
+    @ExceptionHandler(InvalidBulkRequestException.class)
+    public ResponseEntity<ErrorResponse> invalidBulkRequestException(InvalidBulkRequestException exe, WebRequest request) {
+        return new ResponseEntity<ErrorResponse>(
+                new ErrorResponse().code(exe.getCode()).message(exe.getErrorMessage()), HttpStatus.UNPROCESSABLE_ENTITY
+        );
+    }
+
     /**
      * Global Exception handler for Invalid Answer failure
      * Handles the exception and sends back the user/client a user friendly message along with HTTP Status code
@@ -123,6 +154,24 @@ public class RestExceptionHandler {
         );
     }
 
+    /**
+     * Global Exception handler for the requests shed when the server is overloaded
+     * Handles the exception and sends back the user/client a user friendly message along with HTTP Status code
+     * The Retry-After header asks the client to back off before trying again
+     *
+     * @param exe     The ServiceUnavailableException occurred in the application
+     * @param request The web request information if any to be used while framing the response
+     * @return The Error Response consisting of the Http status code and an error message
+     */
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ErrorResponse> serviceUnavailableException(ServiceUnavailableException exe, WebRequest request) {
+        HttpHeaders httpHeaders = new HttpHeaders();
+        httpHeaders.add(HttpHeaders.RETRY_AFTER, "1");
+        return new ResponseEntity<ErrorResponse>(
+                new ErrorResponse().code(exe.getCode()).message(exe.getErrorMessage()), httpHeaders, HttpStatus.SERVICE_UNAVAILABLE
+        );
+    }
+
     /**
      * Global Exception handler for Unexpected Exceptions
      * Handles the exception and sends back the user/client a user friendly message along with HTTP Status code
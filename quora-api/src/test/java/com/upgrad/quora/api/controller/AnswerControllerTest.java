@@ -7,16 +7,21 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest
 @AutoConfigureMockMvc
+@ActiveProfiles("test")
 
 public class AnswerControllerTest {
 
@@ -27,7 +32,7 @@ public class AnswerControllerTest {
     //This test case passes when you try to create the answer but the JWT token entered does not exist in the database.
     @Test
     public void createAnswerWithNonExistingAccessToken() throws Exception {
-        mvc.perform(MockMvcRequestBuilders.post("/question/database_question_uuid/answer/create?answer=my_answer").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "non_existing_access_token"))
+        mvc.perform(MockMvcRequestBuilders.post("/question/00000000-0000-0000-0001-000000001024/answer/create?answer=my_answer").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "non_existing_access_token"))
                 .andExpect(status().isForbidden())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-001"));
     }
@@ -35,7 +40,7 @@ public class AnswerControllerTest {
     //This test case passes when you try to create the answer but the user corresponding to the JWT token entered is signed out of the application.
     @Test
     public void createAnswerWithSignedOutUser() throws Exception {
-        mvc.perform(MockMvcRequestBuilders.post("/question/database_question_uuid/answer/create?answer=my_answer").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "database_accesstoken3"))
+        mvc.perform(MockMvcRequestBuilders.post("/question/00000000-0000-0000-0001-000000001024/answer/create?answer=my_answer").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "database_accesstoken3"))
                 .andExpect(status().isForbidden())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-002"));
     }
@@ -48,10 +53,45 @@ public class AnswerControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("QUES-001"));
     }
 
+    //This test case passes when you try to create a list of answers for the question which does not exist in the database.
+    @Test
+    public void createAnswersForNonExistingQuestion() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.post("/question/non_existing_question_uuid/answer/bulk").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).content("[{\"answer\":\"my_answer\"}]").header("authorization", "database_accesstoken1"))
+                .andExpect(status().isNotFound())
+                .andExpect(MockMvcResultMatchers.jsonPath("code").value("QUES-001"));
+    }
+
+    //This test case passes when you try to create a list of answers for a question, in the order of the request.
+    @Test
+    public void createAnswers() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.post("/question/00000000-0000-0000-0001-000000001024/answer/bulk").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).content("[{\"answer\":\"bulk_answer_0\"},{\"answer\":\"bulk_answer_1\"}]").header("authorization", "database_accesstoken1"))
+                .andExpect(status().isCreated())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].index").value(0))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].status").value("ANSWER CREATED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id").isNotEmpty())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].index").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].status").value("ANSWER CREATED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].id").isNotEmpty());
+    }
+
+    //This test case passes when you try to create a list of answers holding an item which is not valid with continueOnError, which reports the item and creates the valid ones.
+    @Test
+    public void createAnswersContinuingOnError() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.post("/question/00000000-0000-0000-0001-000000001024/answer/bulk?continueOnError=true").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).content("[{},{\"answer\":\"bulk_answer\"}]").header("authorization", "database_accesstoken1"))
+                .andExpect(status().isCreated())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].status").value("ANSWER NOT CREATED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].code").value("BLK-002"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].index").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].status").value("ANSWER CREATED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].id").isNotEmpty());
+    }
+
     //This test case passes when you try to edit the answer but the JWT token entered does not exist in the database.
     @Test
     public void editAnswerWithNonExistingAccessToken() throws Exception {
-        mvc.perform(MockMvcRequestBuilders.put("/answer/edit/database_answer_uuid?content=edited_answer").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "non_existing_access_token"))
+        mvc.perform(MockMvcRequestBuilders.put("/answer/edit/00000000-0000-0000-0002-000000001024?content=edited_answer").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "non_existing_access_token"))
                 .andExpect(status().isForbidden())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-001"));
     }
@@ -59,7 +99,7 @@ public class AnswerControllerTest {
     //This test case passes when you try to edit the answer and the JWT token entered exists in the database but the user corresponding to that JWT token is signed out.
     @Test
     public void editAnswerWithSignedOutUser() throws Exception {
-        mvc.perform(MockMvcRequestBuilders.put("/answer/edit/database_answer_uuid?content=edited_answer").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "database_accesstoken3"))
+        mvc.perform(MockMvcRequestBuilders.put("/answer/edit/00000000-0000-0000-0002-000000001024?content=edited_answer").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "database_accesstoken3"))
                 .andExpect(status().isForbidden())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-002"));
     }
@@ -75,7 +115,7 @@ public class AnswerControllerTest {
     //This test case passes when you try to edit the answer and the JWT token entered exists in the database and the user corresponding to that JWT token is signed in but the corresponding user is not the owner of the answer.
     @Test
     public void editAnswerWithoutOwnership() throws Exception {
-        mvc.perform(MockMvcRequestBuilders.put("/answer/edit/database_answer_uuid?content=edited_answer").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "database_accesstoken"))
+        mvc.perform(MockMvcRequestBuilders.put("/answer/edit/00000000-0000-0000-0002-000000001024?content=edited_answer").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "database_accesstoken"))
                 .andExpect(status().isForbidden())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-003"));
     }
@@ -83,7 +123,7 @@ public class AnswerControllerTest {
     //This test case passes when you try to delete the answer but the JWT token entered does not exist in the database.
     @Test
     public void deleteAnswerWithNonExistingAccessToken() throws Exception {
-        mvc.perform(MockMvcRequestBuilders.delete("/answer/delete/database_answer_uuid").header("authorization", "non_existing_access_token"))
+        mvc.perform(MockMvcRequestBuilders.delete("/answer/delete/00000000-0000-0000-0002-000000001024").header("authorization", "non_existing_access_token"))
                 .andExpect(status().isForbidden())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-001"));
     }
@@ -91,7 +131,7 @@ public class AnswerControllerTest {
     //This test case passes when you try to delete the answer and the JWT token entered exists in the database but the user corresponding to that JWT token is signed out.
     @Test
     public void deleteAnswerWithSignedOutUser() throws Exception {
-        mvc.perform(MockMvcRequestBuilders.delete("/answer/delete/database_answer_uuid").header("authorization", "database_accesstoken3"))
+        mvc.perform(MockMvcRequestBuilders.delete("/answer/delete/00000000-0000-0000-0002-000000001024").header("authorization", "database_accesstoken3"))
                 .andExpect(status().isForbidden())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-002"));
     }
@@ -107,7 +147,7 @@ public class AnswerControllerTest {
     //This test case passes when you try to delete the answer and the JWT token entered exists in the database and the user corresponding to that JWT token is signed in but the corresponding user is not the owner of the answer or he is not the admin.
     @Test
     public void deleteAnswerWithoutOwnership() throws Exception {
-        mvc.perform(MockMvcRequestBuilders.delete("/answer/delete/database_answer_uuid").header("authorization", "database_accesstoken2"))
+        mvc.perform(MockMvcRequestBuilders.delete("/answer/delete/00000000-0000-0000-0002-000000001024").header("authorization", "database_accesstoken2"))
                 .andExpect(status().isForbidden())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-003"));
     }
@@ -115,7 +155,7 @@ public class AnswerControllerTest {
     //This test case passes when you try to get all the answers posted for a specific question but the JWT token entered does not exist in the database.
     @Test
     public void getAllAnswersToQuestionWithNonExistingAccessToken() throws Exception {
-        mvc.perform(MockMvcRequestBuilders.get("/answer/all/database_question_uuid").header("authorization", "non_existing_access_token"))
+        mvc.perform(MockMvcRequestBuilders.get("/answer/all/00000000-0000-0000-0001-000000001024").header("authorization", "non_existing_access_token"))
                 .andExpect(status().isForbidden())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-001"));
     }
@@ -123,7 +163,7 @@ public class AnswerControllerTest {
     //This test case passes when you try to get all the answers posted for a specific question and the JWT token entered exists in the database but the user corresponding to that JWT token is signed out.
     @Test
     public void getAllAnswersToQuestionWithSignedOutUser() throws Exception {
-        mvc.perform(MockMvcRequestBuilders.get("/answer/all/database_question_uuid").header("authorization", "database_accesstoken3"))
+        mvc.perform(MockMvcRequestBuilders.get("/answer/all/00000000-0000-0000-0001-000000001024").header("authorization", "database_accesstoken3"))
                 .andExpect(status().isForbidden())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-002"));
     }
@@ -136,5 +176,50 @@ public class AnswerControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("QUES-001"));
     }
 
+    //This test case passes when you try to get the answers posted for a specific question with a page limit out of range.
+    @Test
+    public void getAllAnswersToQuestionWithInvalidLimit() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/answer/all/00000000-0000-0000-0001-000000001024?limit=0").header("authorization", "database_accesstoken"))
+                .andExpect(status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("code").value("PAG-001"));
+    }
+
+    //This test case passes when you try to get the answers posted for a specific question with a sort order other than newest or oldest.
+    @Test
+    public void getAllAnswersToQuestionWithInvalidSortOrder() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/answer/all/00000000-0000-0000-0001-000000001024?sort=popular").header("authorization", "database_accesstoken"))
+                .andExpect(status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("code").value("PAG-004"));
+    }
+
+    //This test case passes when you try to get the answers posted for a specific question along with their count.
+    @Test
+    public void getAllAnswersToQuestionWithCount() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/answer/all/00000000-0000-0000-0001-000000001024?sort=newest&count=true").header("authorization", "database_accesstoken"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.header().exists("total-count"))
+                .andExpect(MockMvcResultMatchers.header().doesNotExist("total-count-estimated"));
+    }
+
+    //This test case passes when you try to stream all the answers posted for a specific question and the JWT token entered exists in the database and the user corresponding to that JWT token is signed in.
+    @Test
+    public void streamAllAnswersToQuestion() throws Exception {
+        final MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/answer/all/00000000-0000-0000-0001-000000001024?stream=true").header("authorization", "database_accesstoken1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$").isArray())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[?(@.id == '00000000-0000-0000-0002-000000001024')]").exists());
+    }
+
+    //This test case passes when you try to stream all the answers posted for a specific question which does not exist in the database.
+    @Test
+    public void streamAllAnswersToNonExistingQuestion() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/answer/all/non_existing_question_uuid?stream=true").header("authorization", "database_accesstoken"))
+                .andExpect(status().isNotFound())
+                .andExpect(MockMvcResultMatchers.jsonPath("code").value("QUES-001"));
+    }
+
 
 }
\ No newline at end of file
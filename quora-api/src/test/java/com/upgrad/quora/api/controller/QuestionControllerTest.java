@@ -1,22 +1,28 @@
 package com.upgrad.quora.api.controller;
 
 
+import com.jayway.jsonpath.JsonPath;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest
 @AutoConfigureMockMvc
+@ActiveProfiles("test")
 
 public class QuestionControllerTest {
 
@@ -40,6 +46,67 @@ public class QuestionControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-002"));
     }
 
+    //This test case passes when you try to create a list of questions but the user corresponding to the JWT token entered is signed out of the application.
+    @Test
+    public void createQuestionsWithSignedOutUser() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.post("/question/bulk").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).content("[{\"content\":\"my_question\"}]").header("authorization", "database_accesstoken3"))
+                .andExpect(status().isForbidden())
+                .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-002"));
+    }
+
+    //This test case passes when you try to create a list of questions without any question in it.
+    @Test
+    public void createQuestionsWithoutItems() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.post("/question/bulk").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).content("[]").header("authorization", "database_accesstoken1"))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(MockMvcResultMatchers.jsonPath("code").value("BLK-001"));
+    }
+
+    //This test case passes when you try to create a list of questions and each item of the response carries the uuid of the question created from the item at the same position of the request.
+    @Test
+    public void createQuestions() throws Exception {
+        final MvcResult result = mvc.perform(MockMvcRequestBuilders.post("/question/bulk").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).content("[{\"content\":\"bulk_question_0\"},{\"content\":\"bulk_question_1\"}]").header("authorization", "database_accesstoken1"))
+                .andExpect(status().isCreated())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].index").value(0))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].status").value("QUESTION CREATED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].index").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].status").value("QUESTION CREATED"))
+                .andReturn();
+        final String response = result.getResponse().getContentAsString();
+        for (int index = 0; index < 2; index++) {
+            final String questionId = JsonPath.read(response, "$[" + index + "].id");
+            mvc.perform(MockMvcRequestBuilders.get("/question/" + questionId + "/full").header("authorization", "database_accesstoken1"))
+                    .andExpect(status().isOk())
+                    .andExpect(MockMvcResultMatchers.jsonPath("content").value("bulk_question_" + index));
+        }
+    }
+
+    //This test case passes when you try to create a list of questions holding an item which is not valid, which fails the whole request.
+    @Test
+    public void createQuestionsWithInvalidItem() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.post("/question/bulk").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).content("[{\"content\":\"bulk_question\"},{}]").header("authorization", "database_accesstoken1"))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(MockMvcResultMatchers.jsonPath("code").value("BLK-002"));
+    }
+
+    //This test case passes when you try to create a list of questions holding an item which is not valid with continueOnError, which reports the item and creates the valid ones.
+    @Test
+    public void createQuestionsContinuingOnError() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.post("/question/bulk?continueOnError=true").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).content("[{\"content\":\"bulk_question\"},{},{\"content\":\"bulk_question\"}]").header("authorization", "database_accesstoken1"))
+                .andExpect(status().isCreated())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(3))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].status").value("QUESTION CREATED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id").isNotEmpty())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].index").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].status").value("QUESTION NOT CREATED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].code").value("BLK-002"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].id").doesNotExist())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[2].index").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[2].status").value("QUESTION CREATED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[2].id").isNotEmpty());
+    }
+
     //This test case passes when you try to get the detail of all the questions and the JWT token entered exists in the database and the user corresponding to that JWT token is signed in.
     @Test
     public void getAllQuestions() throws Exception {
@@ -47,6 +114,22 @@ public class QuestionControllerTest {
                 .andExpect(status().isOk());
     }
 
+    //This test case passes when you try to get a page of the questions with a page limit out of the allowed range.
+    @Test
+    public void getAllQuestionsWithInvalidLimit() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/question/all?limit=0").header("authorization", "database_accesstoken1"))
+                .andExpect(status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("code").value("PAG-001"));
+    }
+
+    //This test case passes when you try to get a page of the questions with a page cursor not issued by the application.
+    @Test
+    public void getAllQuestionsWithInvalidCursor() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/question/all?after=not_a_cursor").header("authorization", "database_accesstoken1"))
+                .andExpect(status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("code").value("PAG-002"));
+    }
+
     //This test case passes when you try to get the detail of all the questions but the JWT token entered does not exist in the database.
     @Test
     public void getAllQuestionsWithNonExistingAccessToken() throws Exception {
@@ -63,10 +146,45 @@ public class QuestionControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-002"));
     }
 
+    //This test case passes when you try to search the questions and the JWT token entered exists in the database and the user corresponding to that JWT token is signed in.
+    @Test
+    public void searchQuestions() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/question/search?q=database_question_content").header("authorization", "database_accesstoken1"))
+                .andExpect(status().isOk());
+    }
+
+    //This test case passes when you try to search the questions with a negative page offset.
+    @Test
+    public void searchQuestionsWithNegativeOffset() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/question/search?q=database_question_content&offset=-1").header("authorization", "database_accesstoken1"))
+                .andExpect(status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("code").value("PAG-003"));
+    }
+
+    //This test case passes when you try to stream all the questions and the JWT token entered exists in the database and the user corresponding to that JWT token is signed in.
+    @Test
+    public void streamAllQuestions() throws Exception {
+        final MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/question/all?stream=true").header("authorization", "database_accesstoken1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$").isArray())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[?(@.id == '00000000-0000-0000-0001-000000001024')]").exists());
+    }
+
+    //This test case passes when you try to stream all the questions and the JWT token entered exists in the database but the user corresponding to that JWT token is signed out.
+    @Test
+    public void streamAllQuestionsWithSignedOutUser() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/question/all?stream=true").header("authorization", "database_accesstoken3"))
+                .andExpect(status().isForbidden())
+                .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-002"));
+    }
+
     //This test case passes when you try to edit the question but the JWT token entered does not exist in the database.
     @Test
     public void editQuestionWithNonExistingAccessToken() throws Exception {
-        mvc.perform(MockMvcRequestBuilders.put("/question/edit/database_question_uuid?content=edited_question").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "non_existing_access_token"))
+        mvc.perform(MockMvcRequestBuilders.put("/question/edit/00000000-0000-0000-0001-000000001024?content=edited_question").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "non_existing_access_token"))
                 .andExpect(status().isForbidden())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-001"));
     }
@@ -74,7 +192,7 @@ public class QuestionControllerTest {
     //This test case passes when you try to edit the question and the JWT token entered exists in the database but the user corresponding to that JWT token is signed out.
     @Test
     public void editQuestionWithWithSignedOutUser() throws Exception {
-        mvc.perform(MockMvcRequestBuilders.put("/question/edit/database_question_uuid?content=edited_question").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "database_accesstoken3"))
+        mvc.perform(MockMvcRequestBuilders.put("/question/edit/00000000-0000-0000-0001-000000001024?content=edited_question").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "database_accesstoken3"))
                 .andExpect(status().isForbidden())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-002"));
     }
@@ -82,7 +200,7 @@ public class QuestionControllerTest {
     //This test case passes when you try to edit the question and the JWT token entered exists in the database and the user corresponding to that JWT token is signed in but the corresponding user is not the owner of the question.
     @Test
     public void editQuestionWithoutOwnership() throws Exception {
-        mvc.perform(MockMvcRequestBuilders.put("/question/edit/database_question_uuid?content=edited_question").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "database_accesstoken"))
+        mvc.perform(MockMvcRequestBuilders.put("/question/edit/00000000-0000-0000-0001-000000001024?content=edited_question").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "database_accesstoken"))
                 .andExpect(status().isForbidden())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-003"));
     }
@@ -98,7 +216,7 @@ public class QuestionControllerTest {
     //This test case passes when you try to delete the question but the JWT token entered does not exist in the database.
     @Test
     public void deleteQuestionWithNonExistingAccessToken() throws Exception {
-        mvc.perform(MockMvcRequestBuilders.delete("/question/delete/database_question_uuid").header("authorization", "non_existing_access_token"))
+        mvc.perform(MockMvcRequestBuilders.delete("/question/delete/00000000-0000-0000-0001-000000001024").header("authorization", "non_existing_access_token"))
                 .andExpect(status().isForbidden())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-001"));
     }
@@ -106,7 +224,7 @@ public class QuestionControllerTest {
     //This test case passes when you try to delete the question and the JWT token entered exists in the database but the user corresponding to that JWT token is signed out.
     @Test
     public void deleteQuestionWithSignedOutUser() throws Exception {
-        mvc.perform(MockMvcRequestBuilders.delete("/question/delete/database_question_uuid").header("authorization", "database_accesstoken3"))
+        mvc.perform(MockMvcRequestBuilders.delete("/question/delete/00000000-0000-0000-0001-000000001024").header("authorization", "database_accesstoken3"))
                 .andExpect(status().isForbidden())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-002"));
     }
@@ -114,7 +232,7 @@ public class QuestionControllerTest {
     //This test case passes when you try to delete the question and the JWT token entered exists in the database and the user corresponding to that JWT token is signed in but the corresponding user is not the owner of the question or he is not the admin.
     @Test
     public void deleteQuestionWithoutOwnership() throws Exception {
-        mvc.perform(MockMvcRequestBuilders.delete("/question/delete/database_question_uuid").header("authorization", "database_accesstoken2"))
+        mvc.perform(MockMvcRequestBuilders.delete("/question/delete/00000000-0000-0000-0001-000000001024").header("authorization", "database_accesstoken2"))
                 .andExpect(status().isForbidden())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-003"));
     }
@@ -131,7 +249,7 @@ public class QuestionControllerTest {
     //This test case passes when you try to get all the questions posted by a specific user but the JWT token entered does not exist in the database.
     @Test
     public void getAllQuestionsByUserWithNonExistingAccessToken() throws Exception {
-        mvc.perform(MockMvcRequestBuilders.get("/question/all/database_uuid1").header("authorization", "non_existing_access_token"))
+        mvc.perform(MockMvcRequestBuilders.get("/question/all/00000000-0000-0000-0000-000000001026").header("authorization", "non_existing_access_token"))
                 .andExpect(status().isForbidden())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-001"));
     }
@@ -139,7 +257,7 @@ public class QuestionControllerTest {
     //This test case passes when you try to get all the questions posted by a specific user and the JWT token entered exists in the database but the user corresponding to that JWT token is signed out.
     @Test
     public void getAllQuestionsByUserWithSignedOutUser() throws Exception {
-        mvc.perform(MockMvcRequestBuilders.get("/question/all/database_uuid1").header("authorization", "database_accesstoken3"))
+        mvc.perform(MockMvcRequestBuilders.get("/question/all/00000000-0000-0000-0000-000000001026").header("authorization", "database_accesstoken3"))
                 .andExpect(status().isForbidden())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-002"));
     }
@@ -152,5 +270,40 @@ public class QuestionControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("USR-001"));
     }
 
+    //This test case passes when you try to get a question along with its answers.
+    @Test
+    public void getQuestionWithAnswers() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/question/00000000-0000-0000-0001-000000001024/full").header("authorization", "database_accesstoken"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("id").value("00000000-0000-0000-0001-000000001024"))
+                .andExpect(MockMvcResultMatchers.jsonPath("answers").isArray());
+    }
+
+    //This test case passes when you try to get a question along with its answers again with the entity tag of the previous response and neither of them is modified meanwhile.
+    @Test
+    public void getQuestionWithAnswersNotModified() throws Exception {
+        final String eTag = mvc.perform(MockMvcRequestBuilders.get("/question/00000000-0000-0000-0001-000000001024/full").header("authorization", "database_accesstoken"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        mvc.perform(MockMvcRequestBuilders.get("/question/00000000-0000-0000-0001-000000001024/full").header("authorization", "database_accesstoken").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+    }
+
+    //This test case passes when you try to get a question along with its answers but the JWT token entered exists in the database but the user corresponding to that JWT token is signed out.
+    @Test
+    public void getQuestionWithAnswersWithSignedOutUser() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/question/00000000-0000-0000-0001-000000001024/full").header("authorization", "database_accesstoken3"))
+                .andExpect(status().isForbidden())
+                .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-002"));
+    }
+
+    //This test case passes when you try to get a question which does not exist in the database along with its answers.
+    @Test
+    public void getNonExistingQuestionWithAnswers() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/question/non_existing_question_uuid/full").header("authorization", "database_accesstoken"))
+                .andExpect(status().isNotFound())
+                .andExpect(MockMvcResultMatchers.jsonPath("code").value("QUES-001"));
+    }
+
 
 }
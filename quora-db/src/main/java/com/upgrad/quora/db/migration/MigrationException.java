@@ -0,0 +1,16 @@
+package com.upgrad.quora.db.migration;
+
+/**
+ * MigrationException is thrown when the schema cannot be brought to the latest version: a script failed,
+ * an applied script was changed afterwards, or a pending script is older than the scripts already applied
+ */
+public class MigrationException extends RuntimeException {
+
+    public MigrationException(final String message) {
+        super(message);
+    }
+
+    public MigrationException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+}
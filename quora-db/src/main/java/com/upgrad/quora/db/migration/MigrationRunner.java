@@ -0,0 +1,236 @@
+package com.upgrad.quora.db.migration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Brings the schema of a live database to the latest version by applying the pending migration scripts in order
+ * The applied scripts are recorded in the schema_migration table along with their checksum, a script changed after it
+ * was applied stops the migration. Scripts are forward only: a script older than the latest applied one is refused
+ * rather than applied out of order, and nothing is ever rolled back by the runner
+ * A database created by quora.sql already holds the schema of the scripts it was written against, quora.sql records
+ * that version as the baseline and the scripts up to it are skipped. A database migrated before the runner existed
+ * is given its baseline version when the schema_migration table is first created
+ * Runs at the API startup through the service configuration, or standalone through the main method
+ */
+public class MigrationRunner {
+
+    /**
+     * Opens the connection the migration runs on
+     */
+    public interface ConnectionFactory {
+        Connection getConnection() throws SQLException;
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MigrationRunner.class);
+
+    // Key of the advisory lock taken by the runner, the instances of the API started together migrate one at a time
+    private static final long LOCK_KEY = 0x71756f7261L;
+
+    private static final long LOCK_POLL_INTERVAL_MS = 1000;
+
+    private final ConnectionFactory connectionFactory;
+    private final List<MigrationScript> scripts;
+    private final int baselineVersion;
+
+    /**
+     * @param connectionFactory Opens the connection the migration runs on
+     * @param scripts           The migration scripts ordered by version
+     * @param baselineVersion   The version already held by a database without schema_migration table, 0 if none
+     */
+    public MigrationRunner(final ConnectionFactory connectionFactory, final List<MigrationScript> scripts, final int baselineVersion) {
+        this.connectionFactory = connectionFactory;
+        this.scripts = scripts;
+        this.baselineVersion = baselineVersion;
+    }
+
+    /**
+     * This method verifies the checksums of the applied scripts and applies the pending ones
+     *
+     * @return The number of scripts applied
+     * @throws MigrationException If a script failed, or an applied script was changed, or a pending script is out of order
+     */
+    public int migrate() {
+        try (Connection connection = connectionFactory.getConnection()) {
+            connection.setAutoCommit(true);
+            lock(connection);
+            try {
+                return migrate(connection);
+            } finally {
+                unlock(connection);
+            }
+        } catch (SQLException e) {
+            throw new MigrationException("Schema migration failed", e);
+        }
+    }
+
+    private int migrate(final Connection connection) throws SQLException {
+        createHistoryTable(connection);
+        final Map<Integer, String> appliedChecksums = new HashMap<>();
+        int baseline = 0;
+        int latest = 0;
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select version, checksum from schema_migration")) {
+            while (resultSet.next()) {
+                final int version = resultSet.getInt(1);
+                final String checksum = resultSet.getString(2);
+                appliedChecksums.put(version, checksum);
+                latest = Math.max(latest, version);
+                if (checksum == null) {
+                    baseline = Math.max(baseline, version);
+                }
+            }
+        }
+        int applied = 0;
+        for (MigrationScript script : scripts) {
+            final int version = script.getVersion();
+            if (appliedChecksums.containsKey(version)) {
+                final String checksum = appliedChecksums.get(version);
+                if (checksum != null && !checksum.equals(script.getChecksum())) {
+                    throw new MigrationException(script.getName() + " was changed after it was applied, "
+                            + "add a new migration script instead");
+                }
+            } else if (version > baseline) {
+                if (version < latest) {
+                    throw new MigrationException(script.getName() + " is older than the applied version " + latest
+                            + ", migration scripts are applied forward only");
+                }
+                apply(connection, script);
+                latest = version;
+                applied++;
+            }
+        }
+        LOGGER.info("Schema is at version {}, {} migration script(s) applied", latest, applied);
+        return applied;
+    }
+
+    private void createHistoryTable(final Connection connection) throws SQLException {
+        final boolean exists;
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select to_regclass('schema_migration') is not null")) {
+            exists = resultSet.next() && resultSet.getBoolean(1);
+        }
+        if (exists) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table if not exists schema_migration(version integer primary key, "
+                    + "description varchar(200) not null, script varchar(200), checksum varchar(64), "
+                    + "installed_at timestamp not null default current_timestamp, execution_ms integer not null default 0)");
+        }
+        if (baselineVersion > 0) {
+            LOGGER.info("Recording version {} as the baseline of the existing schema", baselineVersion);
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "insert into schema_migration(version, description) values (?, '<< baseline >>')")) {
+                statement.setInt(1, baselineVersion);
+                statement.executeUpdate();
+            }
+        }
+    }
+
+    private void apply(final Connection connection, final MigrationScript script) throws SQLException {
+        LOGGER.info("Applying {}{}", script.getName(), script.isTransactional() ? "" : " without transaction");
+        final long start = System.currentTimeMillis();
+        if (script.isTransactional()) {
+            connection.setAutoCommit(false);
+            try {
+                execute(connection, script);
+                record(connection, script, System.currentTimeMillis() - start);
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } else {
+            // Each statement commits on its own, a failure leaves the statements before it applied and the script
+            // unrecorded, it runs again from the start on the next migration
+            execute(connection, script);
+            record(connection, script, System.currentTimeMillis() - start);
+        }
+    }
+
+    private void execute(final Connection connection, final MigrationScript script) throws SQLException {
+        for (String sql : script.getStatements()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(sql);
+            } catch (SQLException e) {
+                throw new MigrationException(script.getName() + " failed on: " + sql, e);
+            }
+        }
+    }
+
+    private void record(final Connection connection, final MigrationScript script, final long executionMs) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "insert into schema_migration(version, description, script, checksum, execution_ms) values (?, ?, ?, ?, ?)")) {
+            statement.setInt(1, script.getVersion());
+            statement.setString(2, script.getDescription());
+            statement.setString(3, script.getName());
+            statement.setString(4, script.getChecksum());
+            statement.setInt(5, (int) executionMs);
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Takes the advisory lock by polling rather than by waiting in pg_advisory_lock, a session waiting on the lock
+     * would hold a snapshot that the CREATE INDEX CONCURRENTLY of the session holding it waits for
+     */
+    private void lock(final Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("select pg_try_advisory_lock(?)")) {
+            statement.setLong(1, LOCK_KEY);
+            while (true) {
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    if (resultSet.next() && resultSet.getBoolean(1)) {
+                        return;
+                    }
+                }
+                LOGGER.info("Waiting for the schema migration run by another instance");
+                try {
+                    Thread.sleep(LOCK_POLL_INTERVAL_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new MigrationException("Interrupted while waiting for the migration lock", e);
+                }
+            }
+        }
+    }
+
+    private void unlock(final Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("select pg_advisory_unlock(?)")) {
+            statement.setLong(1, LOCK_KEY);
+            statement.execute();
+        }
+    }
+
+    /**
+     * Runs the migration standalone
+     * Arguments: jdbc url, user, password, then optionally the baseline version and the directory of the scripts,
+     * the scripts packaged in quora-db are applied when no directory is given
+     *
+     * @param args The command line arguments
+     */
+    public static void main(final String[] args) {
+        if (args.length < 3) {
+            System.err.println("Usage: MigrationRunner <jdbc-url> <user> <password> [baseline-version] [scripts-directory]");
+            System.exit(2);
+        }
+        final int baselineVersion = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+        final List<MigrationScript> scripts = args.length > 4
+                ? MigrationScriptLoader.fromDirectory(Paths.get(args[4]))
+                : MigrationScriptLoader.fromClasspath(MigrationScriptLoader.DEFAULT_LOCATION, MigrationRunner.class.getClassLoader());
+        new MigrationRunner(() -> DriverManager.getConnection(args[0], args[1], args[2]), scripts, baselineVersion).migrate();
+    }
+}
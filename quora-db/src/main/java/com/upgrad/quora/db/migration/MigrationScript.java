@@ -0,0 +1,146 @@
+package com.upgrad.quora.db.migration;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A forward only migration script named V&lt;version&gt;__&lt;description&gt;.sql
+ * The checksum is the SHA-256 of the script with its line endings normalized, it is recorded when the script is applied
+ * and compared on every later run so that a script cannot be changed once it has reached a database
+ * A script whose first line is the no-transaction directive runs each of its statements in autocommit mode, which
+ * CREATE INDEX CONCURRENTLY requires. Such a script is not atomic and has to be written so that it can be run again
+ * from the start after a failure, for instance by dropping an index left invalid before creating it
+ */
+public final class MigrationScript implements Comparable<MigrationScript> {
+
+    public static final String NO_TRANSACTION_DIRECTIVE = "--no-transaction";
+
+    private static final Pattern NAME_PATTERN = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+
+    private final int version;
+    private final String description;
+    private final String name;
+    private final String sql;
+    private final String checksum;
+
+    private MigrationScript(final int version, final String description, final String name, final String sql) {
+        this.version = version;
+        this.description = description;
+        this.name = name;
+        this.sql = sql.replace("\r\n", "\n");
+        this.checksum = sha256(this.sql);
+    }
+
+    /**
+     * This method builds the migration script from its file
+     *
+     * @param name The file name of the script
+     * @param sql  The content of the script
+     * @return The migration script, null if the name is not the one of a migration script
+     */
+    public static MigrationScript of(final String name, final String sql) {
+        final Matcher matcher = NAME_PATTERN.matcher(name);
+        if (!matcher.matches()) {
+            return null;
+        }
+        return new MigrationScript(Integer.parseInt(matcher.group(1)), matcher.group(2).replace('_', ' '), name, sql);
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getChecksum() {
+        return checksum;
+    }
+
+    public boolean isTransactional() {
+        return !sql.startsWith(NO_TRANSACTION_DIRECTIVE);
+    }
+
+    /**
+     * This method splits the script into its statements on the semicolons ending them
+     * Semicolons within quoted literals and identifiers, comments and dollar quoted bodies do not end a statement
+     *
+     * @return The statements of the script, without the comments between them
+     */
+    public List<String> getStatements() {
+        final List<String> statements = new ArrayList<>();
+        final StringBuilder statement = new StringBuilder();
+        int i = 0;
+        while (i < sql.length()) {
+            final char c = sql.charAt(i);
+            if (c == '-' && sql.startsWith("--", i)) {
+                // Line comment, dropped
+                final int end = sql.indexOf('\n', i);
+                i = end < 0 ? sql.length() : end + 1;
+                statement.append('\n');
+            } else if (c == '\'' || c == '"') {
+                final int end = sql.indexOf(c, i + 1);
+                final int next = end < 0 ? sql.length() : end + 1;
+                statement.append(sql, i, next);
+                i = next;
+            } else if (c == '$') {
+                final int tagEnd = sql.indexOf('$', i + 1);
+                final String tag = tagEnd < 0 ? null : sql.substring(i, tagEnd + 1);
+                if (tag != null && tag.matches("\\$\\w*\\$")) {
+                    final int end = sql.indexOf(tag, tagEnd + 1);
+                    final int next = end < 0 ? sql.length() : end + tag.length();
+                    statement.append(sql, i, next);
+                    i = next;
+                } else {
+                    statement.append(c);
+                    i++;
+                }
+            } else if (c == ';') {
+                addStatement(statements, statement);
+                i++;
+            } else {
+                statement.append(c);
+                i++;
+            }
+        }
+        addStatement(statements, statement);
+        return Collections.unmodifiableList(statements);
+    }
+
+    @Override
+    public int compareTo(final MigrationScript other) {
+        return Integer.compare(version, other.version);
+    }
+
+    private static void addStatement(final List<String> statements, final StringBuilder statement) {
+        final String trimmed = statement.toString().trim();
+        if (!trimmed.isEmpty()) {
+            statements.add(trimmed);
+        }
+        statement.setLength(0);
+    }
+
+    private static String sha256(final String text) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.upgrad.quora.db.migration;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+/**
+ * Loads the migration scripts, from a directory of the classpath, packaged in the quora-db jar or not, or from a
+ * directory of the file system when the runner is started standalone
+ */
+public final class MigrationScriptLoader {
+
+    public static final String DEFAULT_LOCATION = "sql/migration";
+
+    private MigrationScriptLoader() {
+    }
+
+    /**
+     * This method loads the migration scripts of a classpath directory
+     *
+     * @param location    The classpath directory holding the scripts, without leading slash
+     * @param classLoader The class loader to look the directory up with
+     * @return The migration scripts ordered by version, empty if the directory does not exist
+     */
+    public static List<MigrationScript> fromClasspath(final String location, final ClassLoader classLoader) {
+        final List<MigrationScript> scripts = new ArrayList<>();
+        try {
+            final Enumeration<URL> urls = classLoader.getResources(location);
+            while (urls.hasMoreElements()) {
+                final URL url = urls.nextElement();
+                if ("jar".equals(url.getProtocol())) {
+                    addJarScripts(scripts, (JarURLConnection) url.openConnection(), location);
+                } else {
+                    scripts.addAll(fromDirectory(Paths.get(url.toURI())));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (URISyntaxException e) {
+            throw new MigrationException("Invalid migration location " + location, e);
+        }
+        Collections.sort(scripts);
+        return scripts;
+    }
+
+    /**
+     * This method loads the migration scripts of a file system directory
+     *
+     * @param directory The directory holding the scripts
+     * @return The migration scripts ordered by version
+     */
+    public static List<MigrationScript> fromDirectory(final Path directory) {
+        final List<MigrationScript> scripts = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                final MigrationScript script = MigrationScript.of(file.getFileName().toString(),
+                        new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+                if (script != null) {
+                    scripts.add(script);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Collections.sort(scripts);
+        return scripts;
+    }
+
+    private static void addJarScripts(final List<MigrationScript> scripts, final JarURLConnection connection,
+                                      final String location) throws IOException {
+        connection.setUseCaches(false);
+        final String prefix = location.endsWith("/") ? location : location + "/";
+        try (JarFile jarFile = connection.getJarFile()) {
+            final Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                final JarEntry entry = entries.nextElement();
+                final String entryName = entry.getName();
+                if (entry.isDirectory() || !entryName.startsWith(prefix) || entryName.indexOf('/', prefix.length()) >= 0) {
+                    continue;
+                }
+                try (InputStream in = jarFile.getInputStream(entry)) {
+                    final MigrationScript script = MigrationScript.of(entryName.substring(prefix.length()), read(in));
+                    if (script != null) {
+                        scripts.add(script);
+                    }
+                }
+            }
+        }
+    }
+
+    private static String read(final InputStream in) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            out.write(buffer, 0, read);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
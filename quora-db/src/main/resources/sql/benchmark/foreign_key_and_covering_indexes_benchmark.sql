@@ -0,0 +1,68 @@
+--Benchmark of the indexes added by migration/V008__foreign_key_and_covering_indexes.sql
+--Run with psql against a development database, keeping the plans next to the script:
+--  psql -h localhost -U postgres -d quora -f foreign_key_and_covering_indexes_benchmark.sql > foreign_key_and_covering_indexes_benchmark.out
+--The file is named apart from the migration scripts so that no migration location ever picks it up as a version
+--The data is generated in a benchmark schema dropped at the end, the tables of the application are not touched
+--Each access path is explained before and after the index is created, with the same statement the application runs
+--
+--What to look for in the plans:
+--  questions of a user   before: Seq Scan on question + Sort                after: Index Only Scan using question_user_id_date_idx, no Sort, Heap Fetches: 0
+--  answers to a question before: Seq Scan on answer + Sort                  after: Index Only Scan using answer_question_id_date_idx, no Sort, Heap Fetches: 0
+--  delete of a question  before: "Trigger for constraint" on answer with a sequential scan per deleted question, after: index probe
+--  delete of a user      before: "Trigger for constraint" on question and answer with sequential scans,           after: index probes
+
+\timing on
+
+DROP SCHEMA IF EXISTS benchmark CASCADE;
+CREATE SCHEMA benchmark;
+SET search_path = benchmark;
+
+CREATE TABLE users(id INTEGER PRIMARY KEY, uuid UUID NOT NULL);
+CREATE TABLE question(id INTEGER PRIMARY KEY, uuid UUID NOT NULL, content VARCHAR(500) NOT NULL, date TIMESTAMP NOT NULL,
+    user_id INTEGER NOT NULL REFERENCES users(id) ON DELETE CASCADE);
+CREATE TABLE answer(id INTEGER PRIMARY KEY, uuid UUID NOT NULL, ans VARCHAR(255) NOT NULL, date TIMESTAMP NOT NULL,
+    user_id INTEGER NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    question_id INTEGER NOT NULL REFERENCES question(id) ON DELETE CASCADE);
+
+--10 000 users, 200 000 questions spread over them, 1 000 000 answers spread over the first 50 000 questions
+INSERT INTO users SELECT i, md5(i::text)::uuid FROM generate_series(1, 10000) i;
+INSERT INTO question SELECT i, md5('q' || i)::uuid, repeat('question content ', 10), now() - i * interval '1 minute', 1 + i % 10000
+    FROM generate_series(1, 200000) i;
+INSERT INTO answer SELECT i, md5('a' || i)::uuid, repeat('answer ', 20), now() - i * interval '1 second', 1 + i % 10000, 1 + i % 50000
+    FROM generate_series(1, 1000000) i;
+VACUUM ANALYZE users;
+VACUUM ANALYZE question;
+VACUUM ANALYZE answer;
+
+
+--Before: no index on the foreign keys
+EXPLAIN (ANALYZE, BUFFERS) SELECT id, uuid, content, date FROM question WHERE user_id = 42 ORDER BY date DESC, id DESC;
+EXPLAIN (ANALYZE, BUFFERS) SELECT id, uuid, ans, date FROM answer WHERE question_id = 42 ORDER BY date, id;
+BEGIN;
+EXPLAIN (ANALYZE, BUFFERS) DELETE FROM question WHERE id = 4242;
+ROLLBACK;
+BEGIN;
+EXPLAIN (ANALYZE, BUFFERS) DELETE FROM users WHERE id = 4242;
+ROLLBACK;
+
+
+--After: the indexes of V008
+CREATE INDEX question_user_id_date_idx ON question(user_id, date DESC, id DESC) INCLUDE (uuid, content);
+CREATE INDEX answer_question_id_date_idx ON answer(question_id, date, id) INCLUDE (uuid, ans);
+CREATE INDEX answer_user_id_idx ON answer(user_id);
+--Index only scans skip the heap for the pages marked all visible by vacuum
+VACUUM ANALYZE question;
+VACUUM ANALYZE answer;
+
+EXPLAIN (ANALYZE, BUFFERS) SELECT id, uuid, content, date FROM question WHERE user_id = 42 ORDER BY date DESC, id DESC;
+EXPLAIN (ANALYZE, BUFFERS) SELECT id, uuid, ans, date FROM answer WHERE question_id = 42 ORDER BY date, id;
+BEGIN;
+EXPLAIN (ANALYZE, BUFFERS) DELETE FROM question WHERE id = 4242;
+ROLLBACK;
+BEGIN;
+EXPLAIN (ANALYZE, BUFFERS) DELETE FROM users WHERE id = 4242;
+ROLLBACK;
+
+
+RESET search_path;
+DROP SCHEMA benchmark CASCADE;
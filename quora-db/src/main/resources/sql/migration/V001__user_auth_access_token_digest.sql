@@ -0,0 +1,6 @@
+--Replaces the ACCESS_TOKEN column of USER_AUTH with the SHA-256 digest of the token, indexed for the token lookups
+ALTER TABLE USER_AUTH ADD COLUMN ACCESS_TOKEN_DIGEST BYTEA;
+UPDATE USER_AUTH SET ACCESS_TOKEN_DIGEST = sha256(convert_to(ACCESS_TOKEN, 'UTF8'));
+ALTER TABLE USER_AUTH ALTER COLUMN ACCESS_TOKEN_DIGEST SET NOT NULL;
+CREATE UNIQUE INDEX USER_AUTH_ACCESS_TOKEN_DIGEST_IDX ON USER_AUTH(ACCESS_TOKEN_DIGEST);
+ALTER TABLE USER_AUTH DROP COLUMN ACCESS_TOKEN;
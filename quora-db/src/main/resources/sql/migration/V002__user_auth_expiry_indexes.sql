@@ -0,0 +1,3 @@
+--Indexes supporting the batched deletes of the user_auth reaper and the sign-out polling of the stateless token mode
+CREATE INDEX USER_AUTH_EXPIRES_AT_IDX ON USER_AUTH(EXPIRES_AT);
+CREATE INDEX USER_AUTH_LOGOUT_AT_IDX ON USER_AUTH(LOGOUT_AT) WHERE LOGOUT_AT IS NOT NULL;
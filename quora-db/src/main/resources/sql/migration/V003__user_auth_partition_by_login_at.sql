@@ -0,0 +1,34 @@
+--Moves USER_AUTH to a table range partitioned by LOGIN_AT
+--The existing sessions are copied into the default partition, the partition maintenance job of the application
+--creates the ranges of the coming periods. The table is locked for the duration of the copy
+ALTER TABLE USER_AUTH RENAME TO USER_AUTH_UNPARTITIONED;
+ALTER INDEX USER_AUTH_PKEY RENAME TO USER_AUTH_UNPARTITIONED_PKEY;
+ALTER INDEX USER_AUTH_ACCESS_TOKEN_DIGEST_IDX RENAME TO USER_AUTH_UNPARTITIONED_ACCESS_TOKEN_DIGEST_IDX;
+ALTER INDEX USER_AUTH_EXPIRES_AT_IDX RENAME TO USER_AUTH_UNPARTITIONED_EXPIRES_AT_IDX;
+ALTER INDEX USER_AUTH_LOGOUT_AT_IDX RENAME TO USER_AUTH_UNPARTITIONED_LOGOUT_AT_IDX;
+ALTER SEQUENCE USER_AUTH_ID_SEQ OWNED BY NONE;
+
+CREATE TABLE USER_AUTH(
+	ID BIGINT NOT NULL DEFAULT nextval('USER_AUTH_ID_SEQ'),
+	uuid VARCHAR(200) NOT NULL,
+	USER_ID INTEGER NOT NULL,
+	ACCESS_TOKEN_DIGEST BYTEA NOT NULL,
+	EXPIRES_AT TIMESTAMP NOT NULL,
+	LOGIN_AT TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+	LOGOUT_AT TIMESTAMP NULL,
+	PRIMARY KEY (ID, LOGIN_AT)
+) PARTITION BY RANGE (LOGIN_AT);
+ALTER SEQUENCE USER_AUTH_ID_SEQ OWNED BY USER_AUTH.ID;
+
+CREATE TABLE USER_AUTH_DEFAULT PARTITION OF USER_AUTH DEFAULT;
+
+ALTER TABLE USER_AUTH ADD CONSTRAINT FK_USER_AUTH_PARTITIONED_USER_ID FOREIGN KEY(USER_ID) REFERENCES USERS(ID) ON DELETE CASCADE ;
+CREATE INDEX USER_AUTH_ACCESS_TOKEN_DIGEST_IDX ON USER_AUTH(ACCESS_TOKEN_DIGEST);
+CREATE INDEX USER_AUTH_EXPIRES_AT_IDX ON USER_AUTH(EXPIRES_AT);
+CREATE INDEX USER_AUTH_LOGOUT_AT_IDX ON USER_AUTH(LOGOUT_AT) WHERE LOGOUT_AT IS NOT NULL;
+
+INSERT INTO USER_AUTH(ID, uuid, USER_ID, ACCESS_TOKEN_DIGEST, EXPIRES_AT, LOGIN_AT, LOGOUT_AT)
+	SELECT ID, uuid, USER_ID, ACCESS_TOKEN_DIGEST, EXPIRES_AT, LOGIN_AT, LOGOUT_AT FROM USER_AUTH_UNPARTITIONED;
+
+DROP TABLE USER_AUTH_UNPARTITIONED;
+ALTER TABLE USER_AUTH RENAME CONSTRAINT FK_USER_AUTH_PARTITIONED_USER_ID TO FK_USER_AUTH_USER_ID;
@@ -0,0 +1,2 @@
+--Index backing the keyset pagination of the questions, latest first
+CREATE INDEX IF NOT EXISTS QUESTION_DATE_ID_IDX ON QUESTION(date DESC, id DESC);
@@ -0,0 +1,4 @@
+--Generated tsvector of the question content and its GIN index backing /question/search
+--Adding a stored generated column rewrites the question table, requires PostgreSQL 12 or later
+ALTER TABLE QUESTION ADD COLUMN IF NOT EXISTS content_tsv TSVECTOR GENERATED ALWAYS AS (to_tsvector('english', content)) STORED;
+CREATE INDEX IF NOT EXISTS QUESTION_CONTENT_TSV_IDX ON QUESTION USING GIN (content_tsv);
@@ -0,0 +1,10 @@
+--The entities take their ids from the sequences in blocks of 50 (pooled optimizer, allocationSize = 50)
+--Each sequence is moved so that the first block handed out starts right after the largest id in use
+ALTER SEQUENCE USERS_ID_SEQ INCREMENT BY 50;
+SELECT setval('users_id_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM users), false);
+ALTER SEQUENCE USER_AUTH_ID_SEQ INCREMENT BY 50;
+SELECT setval('user_auth_id_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM user_auth), false);
+ALTER SEQUENCE QUESTION_ID_SEQ INCREMENT BY 50;
+SELECT setval('question_id_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM question), false);
+ALTER SEQUENCE ANSWER_ID_SEQ INCREMENT BY 50;
+SELECT setval('answer_id_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM answer), false);
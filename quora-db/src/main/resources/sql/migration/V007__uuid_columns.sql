@@ -0,0 +1,10 @@
+--The uuids are stored in the 16 bytes uuid type instead of VARCHAR(200), and the lookups by uuid go through unique indexes
+--The values generated by the application are valid uuids, any other value is replaced by the uuid of its md5 digest.
+--The same text always gives the same uuid, so the uuid of user_auth still matches the one of its user
+ALTER TABLE USERS ALTER COLUMN uuid TYPE UUID USING (CASE WHEN uuid ~* '^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}$' THEN uuid ELSE md5(uuid) END)::uuid;
+ALTER TABLE USER_AUTH ALTER COLUMN uuid TYPE UUID USING (CASE WHEN uuid ~* '^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}$' THEN uuid ELSE md5(uuid) END)::uuid;
+ALTER TABLE QUESTION ALTER COLUMN uuid TYPE UUID USING (CASE WHEN uuid ~* '^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}$' THEN uuid ELSE md5(uuid) END)::uuid;
+ALTER TABLE ANSWER ALTER COLUMN uuid TYPE UUID USING (CASE WHEN uuid ~* '^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}$' THEN uuid ELSE md5(uuid) END)::uuid;
+CREATE UNIQUE INDEX IF NOT EXISTS USERS_UUID_IDX ON USERS(uuid);
+CREATE UNIQUE INDEX IF NOT EXISTS QUESTION_UUID_IDX ON QUESTION(uuid);
+CREATE UNIQUE INDEX IF NOT EXISTS ANSWER_UUID_IDX ON ANSWER(uuid);
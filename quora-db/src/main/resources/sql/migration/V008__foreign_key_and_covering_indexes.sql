@@ -0,0 +1,20 @@
+--no-transaction
+--Indexes on the foreign keys of question, answer and user_auth, built without blocking the writes to the tables
+--The question and answer ones cover the columns of the listings, which run as index only scans
+--A build that failed leaves an invalid index behind, each one is dropped first so that the script can run again
+
+--Questions of a user, latest first: /question/all/{userId} and the cascade of a user deletion
+DROP INDEX CONCURRENTLY IF EXISTS QUESTION_USER_ID_DATE_IDX;
+CREATE INDEX CONCURRENTLY QUESTION_USER_ID_DATE_IDX ON QUESTION(user_id, date DESC, id DESC) INCLUDE (uuid, content);
+
+--Answers to a question by date: /answer/all/{questionId} and the cascade of a question deletion
+DROP INDEX CONCURRENTLY IF EXISTS ANSWER_QUESTION_ID_DATE_IDX;
+CREATE INDEX CONCURRENTLY ANSWER_QUESTION_ID_DATE_IDX ON ANSWER(question_id, date, id) INCLUDE (uuid, ans);
+
+--Answers of a user: the cascade of a user deletion
+DROP INDEX CONCURRENTLY IF EXISTS ANSWER_USER_ID_IDX;
+CREATE INDEX CONCURRENTLY ANSWER_USER_ID_IDX ON ANSWER(user_id);
+
+--Sessions of a user: the cascade of a user deletion
+--An index on a partitioned table cannot be built concurrently, the partitions only hold the recent sessions
+CREATE INDEX IF NOT EXISTS USER_AUTH_USER_ID_IDX ON USER_AUTH(USER_ID);
@@ -0,0 +1,4 @@
+--Users whose access tokens are all revoked, so that the deletion of a user reaches the revocation registry of every
+--instance in the stateless token mode. The sessions of a deleted user go along with it and can't carry the revocation
+CREATE TABLE IF NOT EXISTS USER_REVOCATION(USER_UUID UUID NOT NULL, REVOKED_AT TIMESTAMP NOT NULL, EXPIRES_AT TIMESTAMP NOT NULL, PRIMARY KEY (USER_UUID));
+CREATE INDEX IF NOT EXISTS USER_REVOCATION_REVOKED_AT_IDX ON USER_REVOCATION(REVOKED_AT);
@@ -0,0 +1,24 @@
+--Moves the sessions which V003 copied into USER_AUTH_DEFAULT into LOGIN_AT range partitions, so that the retention of
+--the partition maintenance job applies to them and the range of the current week can be created
+--A range can't be created while the default partition holds rows of it, so the default partition is detached, the
+--weekly ranges spanned by its rows are created, the rows are moved into them and the emptied partition is attached back
+--The ranges start on Mondays and are named like the ones of the job with its default WEEKLY granularity, the job drops
+--them once they are past the retention
+ALTER TABLE USER_AUTH DETACH PARTITION USER_AUTH_DEFAULT;
+
+DO $$
+DECLARE
+	week_start DATE;
+BEGIN
+	FOR week_start IN SELECT DISTINCT date_trunc('week', LOGIN_AT)::DATE FROM USER_AUTH_DEFAULT LOOP
+		EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF USER_AUTH FOR VALUES FROM (%L) TO (%L)',
+			'user_auth_p' || to_char(week_start, 'YYYYMMDD'), week_start, week_start + 7);
+	END LOOP;
+END
+$$;
+
+INSERT INTO USER_AUTH(ID, uuid, USER_ID, ACCESS_TOKEN_DIGEST, EXPIRES_AT, LOGIN_AT, LOGOUT_AT)
+	SELECT ID, uuid, USER_ID, ACCESS_TOKEN_DIGEST, EXPIRES_AT, LOGIN_AT, LOGOUT_AT FROM USER_AUTH_DEFAULT;
+TRUNCATE USER_AUTH_DEFAULT;
+
+ALTER TABLE USER_AUTH ATTACH PARTITION USER_AUTH_DEFAULT DEFAULT;
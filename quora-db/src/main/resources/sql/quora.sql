@@ -1,30 +1,90 @@
 
 --USERS table is created to store the details of all the users
 DROP TABLE IF EXISTS USERS CASCADE;
-CREATE TABLE IF NOT EXISTS USERS(id SERIAL, uuid VARCHAR(200) NOT NULL ,firstName VARCHAR(30) NOT NULL , lastName VARCHAR(30) NOT NULL ,userName VARCHAR(30) UNIQUE NOT NULL,  email VARCHAR(50) UNIQUE NOT NULL ,password VARCHAR(255) NOT NULL, salt VARCHAR(200) NOT NULL ,country VARCHAR(30) ,aboutMe VARCHAR(50),dob VARCHAR(30), role VARCHAR(30),contactNumber VARCHAR(30), PRIMARY KEY (id));
+CREATE TABLE IF NOT EXISTS USERS(id SERIAL, uuid UUID NOT NULL ,firstName VARCHAR(30) NOT NULL , lastName VARCHAR(30) NOT NULL ,userName VARCHAR(30) UNIQUE NOT NULL,  email VARCHAR(50) UNIQUE NOT NULL ,password VARCHAR(255) NOT NULL, salt VARCHAR(200) NOT NULL ,country VARCHAR(30) ,aboutMe VARCHAR(50),dob VARCHAR(30), role VARCHAR(30),contactNumber VARCHAR(30), PRIMARY KEY (id));
+--The ids are handed out by Hibernate in blocks of 50 per sequence call, the increment has to match the allocationSize of the entity
+ALTER SEQUENCE USERS_ID_SEQ INCREMENT BY 50;
+--Users, questions and answers are looked up by their uuid on nearly every request
+CREATE UNIQUE INDEX USERS_UUID_IDX ON USERS(uuid);
 INSERT INTO users(
 	id, uuid, firstname, lastname, username, email, password, salt, country, aboutme, dob, role, contactnumber)
-	VALUES (1024,'rdtrdtdyt','Abhi','Mahajan','abhi','a@gmail.com','507FF5FED1CAC746','8Xt6jxoCI3MWsVaKY/1ySAp2qzlb2Z7P89+vDrb1o6U=', 'India' ,'I am @ UpGrad' ,'22-10-1995' , 'admin' , '1222333333' );
+	VALUES (1024,'5f1c3a9e-6d2b-4f0a-9c8e-2b7d4e6a1f30','Abhi','Mahajan','abhi','a@gmail.com','507FF5FED1CAC746','8Xt6jxoCI3MWsVaKY/1ySAp2qzlb2Z7P89+vDrb1o6U=', 'India' ,'I am @ UpGrad' ,'22-10-1995' , 'admin' , '1222333333' );
+SELECT setval('users_id_seq', (SELECT MAX(id) FROM users));
 
 --USER_AUTH table is created to store the login information of all the users
+--The table is range partitioned by LOGIN_AT, the partitions are created and dropped by the partition maintenance job
+--of the application. The default partition holds the sessions outside of every partition range, it is never dropped
+--and its rows are purged by the user_auth reaper
 DROP TABLE IF EXISTS USER_AUTH CASCADE;
 CREATE TABLE IF NOT EXISTS USER_AUTH(
-	ID BIGSERIAL PRIMARY KEY,
-	uuid VARCHAR(200) NOT NULL,
+	ID BIGSERIAL NOT NULL,
+	uuid UUID NOT NULL,
 	USER_ID INTEGER NOT NULL,
-	ACCESS_TOKEN VARCHAR(500) NOT NULL,
+	ACCESS_TOKEN_DIGEST BYTEA NOT NULL,
 	EXPIRES_AT TIMESTAMP NOT NULL,
 	LOGIN_AT TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
-	LOGOUT_AT TIMESTAMP NULL
-);
+	LOGOUT_AT TIMESTAMP NULL,
+	PRIMARY KEY (ID, LOGIN_AT)
+) PARTITION BY RANGE (LOGIN_AT);
+ALTER SEQUENCE USER_AUTH_ID_SEQ INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS USER_AUTH_DEFAULT PARTITION OF USER_AUTH DEFAULT;
 
 ALTER TABLE USER_AUTH ADD CONSTRAINT FK_USER_AUTH_USER_ID FOREIGN KEY(USER_ID) REFERENCES USERS(ID) ON DELETE CASCADE ;
 
+--Access tokens are stored and looked up by their SHA-256 digest
+--A unique index on a partitioned table has to include the partition key, the digest alone is indexed instead
+CREATE INDEX USER_AUTH_ACCESS_TOKEN_DIGEST_IDX ON USER_AUTH(ACCESS_TOKEN_DIGEST);
+
+--The uuid of a session is the uuid of its user, sessions are never looked up by it and it is left without index
+
+--Sessions of a user are deleted along with the user
+CREATE INDEX USER_AUTH_USER_ID_IDX ON USER_AUTH(USER_ID);
+
+--Expired and logged out sessions are looked up by the user_auth reaper and the sign-out polling
+CREATE INDEX USER_AUTH_EXPIRES_AT_IDX ON USER_AUTH(EXPIRES_AT);
+CREATE INDEX USER_AUTH_LOGOUT_AT_IDX ON USER_AUTH(LOGOUT_AT) WHERE LOGOUT_AT IS NOT NULL;
+
 --QUESTION table is created to store the questions related information posted by any user in the Application
 DROP TABLE IF EXISTS QUESTION CASCADE;
-CREATE TABLE IF NOT EXISTS QUESTION(id SERIAL,uuid VARCHAR(200) NOT NULL, content VARCHAR(500) NOT NULL, date TIMESTAMP NOT NULL , user_id INTEGER NOT NULL, PRIMARY KEY(id), FOREIGN KEY (user_id) REFERENCES USERS(id) ON DELETE CASCADE);
+CREATE TABLE IF NOT EXISTS QUESTION(id SERIAL,uuid UUID NOT NULL, content VARCHAR(500) NOT NULL, date TIMESTAMP NOT NULL , user_id INTEGER NOT NULL, PRIMARY KEY(id), FOREIGN KEY (user_id) REFERENCES USERS(id) ON DELETE CASCADE);
+ALTER SEQUENCE QUESTION_ID_SEQ INCREMENT BY 50;
+CREATE UNIQUE INDEX QUESTION_UUID_IDX ON QUESTION(uuid);
+
+--The questions are listed latest first and paginated by the (date, id) position of the last question of the page
+CREATE INDEX QUESTION_DATE_ID_IDX ON QUESTION(date DESC, id DESC);
+
+--The questions of a user are listed latest first by index only scans of the covering index, which also serves the
+--deletion of the questions of a deleted user
+CREATE INDEX QUESTION_USER_ID_DATE_IDX ON QUESTION(user_id, date DESC, id DESC) INCLUDE (uuid, content);
+
+--Full text search over the question content, the tsvector is kept up to date by PostgreSQL (generated columns need version 12 or later)
+ALTER TABLE QUESTION ADD COLUMN content_tsv TSVECTOR GENERATED ALWAYS AS (to_tsvector('english', content)) STORED;
+CREATE INDEX QUESTION_CONTENT_TSV_IDX ON QUESTION USING GIN (content_tsv);
 
 
 --ANSWER table is created to store the answers related information in reply to any question posted in the Application
 DROP TABLE IF EXISTS ANSWER CASCADE;
-CREATE TABLE IF NOT EXISTS ANSWER(id SERIAL,uuid VARCHAR(200) NOT NULL, ans VARCHAR(255) NOT NULL,date TIMESTAMP NOT NULL , user_id INTEGER NOT NULL, question_id INTEGER NOT NULL , PRIMARY KEY(id), FOREIGN KEY (user_id) REFERENCES USERS(id) ON DELETE CASCADE, FOREIGN KEY (question_id) REFERENCES QUESTION(id) ON DELETE CASCADE);
+CREATE TABLE IF NOT EXISTS ANSWER(id SERIAL,uuid UUID NOT NULL, ans VARCHAR(255) NOT NULL,date TIMESTAMP NOT NULL , user_id INTEGER NOT NULL, question_id INTEGER NOT NULL , PRIMARY KEY(id), FOREIGN KEY (user_id) REFERENCES USERS(id) ON DELETE CASCADE, FOREIGN KEY (question_id) REFERENCES QUESTION(id) ON DELETE CASCADE);
+ALTER SEQUENCE ANSWER_ID_SEQ INCREMENT BY 50;
+CREATE UNIQUE INDEX ANSWER_UUID_IDX ON ANSWER(uuid);
+
+--The answers to a question are listed by date through index only scans of the covering index, which also serves the
+--deletion of the answers to a deleted question. The answers of a deleted user are found through the user_id index
+CREATE INDEX ANSWER_QUESTION_ID_DATE_IDX ON ANSWER(question_id, date, id) INCLUDE (uuid, ans);
+CREATE INDEX ANSWER_USER_ID_IDX ON ANSWER(user_id);
+
+
+--USER_REVOCATION table records the users whose access tokens are all revoked, polled by the instances in the stateless token mode
+--A revocation is kept till every token issued to the user before it has expired
+DROP TABLE IF EXISTS USER_REVOCATION CASCADE;
+CREATE TABLE IF NOT EXISTS USER_REVOCATION(USER_UUID UUID NOT NULL, REVOKED_AT TIMESTAMP NOT NULL, EXPIRES_AT TIMESTAMP NOT NULL, PRIMARY KEY (USER_UUID));
+CREATE INDEX USER_REVOCATION_REVOKED_AT_IDX ON USER_REVOCATION(REVOKED_AT);
+
+
+--SCHEMA_MIGRATION table records the migration scripts applied by the MigrationRunner of quora-db
+--The schema created above already holds the scripts up to the baseline version, which has to be raised whenever a
+--migration script is folded into this file
+DROP TABLE IF EXISTS SCHEMA_MIGRATION CASCADE;
+CREATE TABLE IF NOT EXISTS SCHEMA_MIGRATION(version INTEGER PRIMARY KEY, description VARCHAR(200) NOT NULL, script VARCHAR(200), checksum VARCHAR(64), installed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, execution_ms INTEGER NOT NULL DEFAULT 0);
+INSERT INTO SCHEMA_MIGRATION(version, description) VALUES (10, '<< baseline >>');
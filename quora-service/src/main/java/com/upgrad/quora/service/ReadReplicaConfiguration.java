@@ -0,0 +1,108 @@
+package com.upgrad.quora.service;
+
+import com.upgrad.quora.service.datasource.ReadReplicaRoutingDataSource;
+import com.upgrad.quora.service.datasource.Replica;
+import com.upgrad.quora.service.datasource.ReplicaPool;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Routes the read only transactions to the read replicas and all the others to the primary set up by spring.datasource
+ * The data source of the application is a LazyConnectionDataSourceProxy over the routing data source, so the routing is
+ * decided on the first statement of a transaction, once its read only flag is known
+ * The replicas have to be streaming standbys of the primary, their lag is measured against its WAL position
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "quora.datasource.replicas", name = "enabled", havingValue = "true")
+public class ReadReplicaConfiguration {
+
+    /**
+     * This method builds the connection pool of the primary, configured by spring.datasource and spring.datasource.hikari
+     *
+     * @param properties The spring.datasource properties
+     * @return The connection pool of the primary
+     */
+    @Bean
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(final DataSourceProperties properties) {
+        final HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    /**
+     * This method builds a read only connection pool for each replica url
+     *
+     * @param properties                The spring.datasource properties, the driver of the replicas
+     * @param primaryDataSource         The connection pool of the primary, whose WAL position the replicas are checked against
+     * @param urls                      The JDBC urls of the replicas
+     * @param username                  The user connecting to the replicas
+     * @param password                  The password of the user connecting to the replicas
+     * @param maximumPoolSize           The maximum number of connections to each replica
+     * @param connectionTimeoutMs       How long a transaction waits for a replica connection before falling back to the primary
+     * @param maxLagSeconds             The replication lag beyond which a replica is left out
+     * @param healthCheckTimeoutSeconds How long the health check of a replica may take
+     * @param meterRegistry             The registry of the replica meters
+     * @return The pool of the replicas
+     */
+    @Bean(destroyMethod = "close")
+    public ReplicaPool replicaPool(final DataSourceProperties properties,
+                                   @Qualifier("primaryDataSource") final DataSource primaryDataSource,
+                                   @Value("${quora.datasource.replicas.urls}") final String[] urls,
+                                   @Value("${quora.datasource.replicas.username:${spring.datasource.username}}") final String username,
+                                   @Value("${quora.datasource.replicas.password:${spring.datasource.password}}") final String password,
+                                   @Value("${quora.datasource.replicas.maximum-pool-size:10}") final int maximumPoolSize,
+                                   @Value("${quora.datasource.replicas.connection-timeout-ms:1000}") final long connectionTimeoutMs,
+                                   @Value("${quora.datasource.replicas.max-lag-seconds:5}") final double maxLagSeconds,
+                                   @Value("${quora.datasource.replicas.health-check-timeout-seconds:2}") final int healthCheckTimeoutSeconds,
+                                   final MeterRegistry meterRegistry) {
+        final List<Replica> replicas = new ArrayList<>(urls.length);
+        for (int index = 0; index < urls.length; index++) {
+            final HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("replica-" + index);
+            dataSource.setDriverClassName(properties.determineDriverClassName());
+            dataSource.setJdbcUrl(urls[index].trim());
+            dataSource.setUsername(username);
+            dataSource.setPassword(password);
+            dataSource.setReadOnly(true);
+            dataSource.setMaximumPoolSize(maximumPoolSize);
+            dataSource.setConnectionTimeout(connectionTimeoutMs);
+            // A replica down at startup is left out by the health checks instead of failing the application
+            dataSource.setInitializationFailTimeout(-1);
+            replicas.add(new Replica(dataSource.getPoolName(), dataSource));
+        }
+        return new ReplicaPool(primaryDataSource, replicas, maxLagSeconds, healthCheckTimeoutSeconds, meterRegistry);
+    }
+
+    /**
+     * This method builds the data source of the application, routing each transaction on its first statement
+     *
+     * @param primaryDataSource The connection pool of the primary
+     * @param replicaPool       The pool of the replicas
+     * @return The data source of the application
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") final DataSource primaryDataSource, final ReplicaPool replicaPool) {
+        final LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(
+                new ReadReplicaRoutingDataSource(primaryDataSource, replicaPool));
+        // Given upfront, the proxy would otherwise fetch a connection at startup to read them
+        dataSource.setDefaultAutoCommit(true);
+        dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        return dataSource;
+    }
+}
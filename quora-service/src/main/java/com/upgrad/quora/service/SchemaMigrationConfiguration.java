@@ -0,0 +1,51 @@
+package com.upgrad.quora.service;
+
+import com.upgrad.quora.db.migration.MigrationRunner;
+import com.upgrad.quora.db.migration.MigrationScriptLoader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.data.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Migrates the schema with the scripts packaged in quora-db when the application starts
+ * The entity manager factory depends on the migration, so no repository touches the database before it is up to date
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "quora.db.migration", name = "enabled", havingValue = "true")
+public class SchemaMigrationConfiguration {
+
+    public static final String SCHEMA_MIGRATION_RUNNER = "schemaMigrationRunner";
+
+    /**
+     * This method applies the pending migration scripts and exposes the runner that applied them
+     *
+     * @param dataSource      The data source of the application
+     * @param location        The classpath directory holding the migration scripts
+     * @param baselineVersion The version held by a database without schema_migration table
+     * @return The migration runner
+     */
+    @Bean(SCHEMA_MIGRATION_RUNNER)
+    public MigrationRunner schemaMigrationRunner(final DataSource dataSource,
+                                                 @Value("${quora.db.migration.location:" + MigrationScriptLoader.DEFAULT_LOCATION + "}") final String location,
+                                                 @Value("${quora.db.migration.baseline-version:0}") final int baselineVersion) {
+        final MigrationRunner migrationRunner = new MigrationRunner(dataSource::getConnection,
+                MigrationScriptLoader.fromClasspath(location, getClass().getClassLoader()), baselineVersion);
+        migrationRunner.migrate();
+        return migrationRunner;
+    }
+
+    /**
+     * Makes the entity manager factory wait for the schema migration
+     */
+    @Configuration
+    protected static class SchemaMigrationJpaDependencyConfiguration extends EntityManagerFactoryDependsOnPostProcessor {
+
+        public SchemaMigrationJpaDependencyConfiguration() {
+            super(SCHEMA_MIGRATION_RUNNER);
+        }
+    }
+}
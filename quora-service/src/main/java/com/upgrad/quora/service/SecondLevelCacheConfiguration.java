@@ -0,0 +1,71 @@
+package com.upgrad.quora.service;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jpa.HibernateMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.data.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ResourceLoader;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Collections;
+
+/**
+ * Sets up the second-level cache of Hibernate, enabled by the hibernate.cache properties of spring.jpa
+ * The regions are Ehcache caches declared in the configuration file, reached through JCache. Hibernate takes the
+ * configuration as an absolute URI, so the classpath location is resolved here before the entity manager factory is built
+ * The statistics of Hibernate, the hits, misses and puts of each region included, are published as hibernate.* meters
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "spring.jpa.properties.hibernate.cache", name = "use_second_level_cache", havingValue = "true")
+public class SecondLevelCacheConfiguration {
+
+    public static final String CACHE_CONFIGURATION_URI = "hibernateCacheConfigurationUri";
+
+    private static final String JCACHE_URI_PROPERTY = "hibernate.javax.cache.uri";
+
+    /**
+     * This method resolves the location of the Ehcache configuration and hands it to Hibernate
+     *
+     * @param jpaProperties  The JPA properties the entity manager factory is built with
+     * @param resourceLoader Resolves the location of the configuration
+     * @param location       The location of the Ehcache configuration declaring the regions
+     * @return The URI of the Ehcache configuration
+     * @throws IOException If the configuration cannot be found
+     */
+    @Bean(CACHE_CONFIGURATION_URI)
+    public URI hibernateCacheConfigurationUri(final JpaProperties jpaProperties, final ResourceLoader resourceLoader,
+                                              @Value("${quora.cache.hibernate.config:classpath:ehcache.xml}") final String location)
+            throws IOException {
+        final URI uri = resourceLoader.getResource(location).getURI();
+        jpaProperties.getProperties().put(JCACHE_URI_PROPERTY, uri.toString());
+        return uri;
+    }
+
+    /**
+     * This method publishes the statistics of Hibernate, gathered when hibernate.generate_statistics is set
+     *
+     * @param entityManagerFactory The entity manager factory of the application
+     * @return The binder of the Hibernate meters
+     */
+    @Bean
+    public MeterBinder hibernateMetrics(final EntityManagerFactory entityManagerFactory) {
+        return new HibernateMetrics(entityManagerFactory, "entityManagerFactory", Collections.emptyList());
+    }
+
+    /**
+     * Makes the entity manager factory wait for the location of the cache configuration
+     */
+    @Configuration
+    protected static class SecondLevelCacheJpaDependencyConfiguration extends EntityManagerFactoryDependsOnPostProcessor {
+
+        public SecondLevelCacheJpaDependencyConfiguration() {
+            super(CACHE_CONFIGURATION_URI);
+        }
+    }
+}
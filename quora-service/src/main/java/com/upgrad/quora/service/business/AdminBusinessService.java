@@ -1,16 +1,27 @@
 package com.upgrad.quora.service.business;
 
+import com.upgrad.quora.service.cache.ListingCache;
+import com.upgrad.quora.service.cache.ResourceVersions;
+import com.upgrad.quora.service.cache.UserAuthCache;
+import com.upgrad.quora.service.cache.UserProfileCache;
+import com.upgrad.quora.service.dao.QuestionDao;
+import com.upgrad.quora.service.datasource.ReplicaConsistency;
 import com.upgrad.quora.service.dao.UserDao;
+import com.upgrad.quora.service.dto.QuestionSummary;
 import com.upgrad.quora.service.entity.User;
 import com.upgrad.quora.service.entity.UserAuthEntity;
 import com.upgrad.quora.service.exception.AuthorizationFailedException;
 import com.upgrad.quora.service.exception.UserNotFoundException;
+import com.upgrad.quora.service.search.QuestionSearchIndex;
 import com.upgrad.quora.service.util.QuoraUtil;
+import com.upgrad.quora.service.util.TransactionUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.UUID;
+
 @Service
 public class AdminBusinessService {
 
@@ -20,6 +31,30 @@ public class AdminBusinessService {
     @Autowired
     private UserBusinessService userBusinessService;
 
+    @Autowired
+    private UserAuthCache userAuthCache;
+
+    @Autowired
+    private UserProfileCache userProfileCache;
+
+    @Autowired
+    private StatelessTokenAuthenticator statelessTokenAuthenticator;
+
+    @Autowired
+    private QuestionDao questionDao;
+
+    @Autowired
+    private QuestionSearchIndex questionSearchIndex;
+
+    @Autowired
+    private ListingCache listingCache;
+
+    @Autowired
+    private ResourceVersions resourceVersions;
+
+    @Autowired
+    private ReplicaConsistency replicaConsistency;
+
 
     /**
      * This method is used to a delete user
@@ -45,7 +80,24 @@ public class AdminBusinessService {
         if (user == null) {
             throw new UserNotFoundException("USR-001", "User with entered uuid to be deleted does not exist");
         }
+        // The questions of the deleted user are removed along with the user, drop them from the search index as well
+        if (questionSearchIndex.isReady()) {
+            for (QuestionSummary question : questionDao.findQuestionByUserId(user.getId())) {
+                final Integer deletedQuestionId = question.getId();
+                TransactionUtil.afterCommit(() -> questionSearchIndex.remove(deletedQuestionId));
+            }
+        }
         userDao.deleteUser(user);
+        final Integer deletedUserId = user.getId();
+        replicaConsistency.afterCommit(() -> userDao.evictCachedUser(deletedUserId));
+        listingCache.invalidateUser(user.getId());
+        resourceVersions.userDeleted(user.getUuid());
+        // The sessions of the deleted user are removed along with the user, drop them from the cache as well
+        final String deletedUserUuid = user.getUuid();
+        userAuthCache.invalidateUser(deletedUserUuid);
+        replicaConsistency.afterCommit(() -> userAuthCache.invalidateUser(deletedUserUuid));
+        userProfileCache.invalidate(UUID.fromString(deletedUserUuid));
+        statelessTokenAuthenticator.revokeUser(deletedUserUuid);
         return user.getUuid();
 
     }
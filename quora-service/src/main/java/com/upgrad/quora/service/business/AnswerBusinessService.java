@@ -1,24 +1,53 @@
 package com.upgrad.quora.service.business;
 
 
+import com.upgrad.quora.service.cache.ListingCache;
+import com.upgrad.quora.service.cache.ResourceVersions;
+import com.upgrad.quora.service.common.Page;
+import com.upgrad.quora.service.common.PageCursor;
+import com.upgrad.quora.service.common.RowHandler;
+import com.upgrad.quora.service.common.SortOrder;
+import com.upgrad.quora.service.common.TotalCount;
 import com.upgrad.quora.service.dao.AnswerDao;
 import com.upgrad.quora.service.dao.QuestionDao;
+import com.upgrad.quora.service.dto.AnswerSummary;
+import com.upgrad.quora.service.dto.BulkItemResult;
+import com.upgrad.quora.service.dto.ModifiedAnswer;
 import com.upgrad.quora.service.entity.Answer;
 import com.upgrad.quora.service.entity.Question;
+import com.upgrad.quora.service.entity.User;
 import com.upgrad.quora.service.entity.UserAuthEntity;
 import com.upgrad.quora.service.exception.AnswerNotFoundException;
 import com.upgrad.quora.service.exception.AuthorizationFailedException;
+import com.upgrad.quora.service.exception.InvalidBulkRequestException;
+import com.upgrad.quora.service.exception.InvalidPaginationException;
 import com.upgrad.quora.service.exception.InvalidQuestionException;
 import com.upgrad.quora.service.util.QuoraUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.annotation.PostConstruct;
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 
 @Service
 public class AnswerBusinessService {
+
+    private static final SortOrder DEFAULT_SORT_ORDER = SortOrder.OLDEST;
+
     @Autowired
     private AnswerDao answerDao;
 
@@ -28,6 +57,45 @@ public class AnswerBusinessService {
     @Autowired
     private UserBusinessService userBusinessService;
 
+    @Autowired
+    private ListingCache listingCache;
+
+    @Autowired
+    private ResourceVersions resourceVersions;
+
+    @Autowired
+    private BulkRequestValidator bulkRequestValidator;
+
+    @Autowired
+    private Validator validator;
+
+    @Value("${quora.pagination.default-limit:100}")
+    private int defaultPageSize;
+
+    @Value("${quora.pagination.max-limit:500}")
+    private int maxPageSize;
+
+    @Value("${quora.pagination.exact-count-limit:1000}")
+    private int exactCountLimit;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${quora.streaming.fetch-size:500}")
+    private int streamingFetchSize;
+
+    @Value("${quora.streaming.chunk-timeout-seconds:10}")
+    private int streamingChunkTimeoutSeconds;
+
+    private TransactionTemplate streamingChunkTransaction;
+
+    @PostConstruct
+    public void init() {
+        streamingChunkTransaction = new TransactionTemplate(transactionManager);
+        streamingChunkTransaction.setReadOnly(true);
+        streamingChunkTransaction.setTimeout(streamingChunkTimeoutSeconds);
+    }
+
     /**
      * This method is used to create answer for questions asked by users
      *
@@ -56,41 +124,114 @@ public class AnswerBusinessService {
         }
         answer.setQuestion(questionEntity);
         answer.setUser(userAuthEntity.getUser());
+        listingCache.invalidateAnswersTo(questionEntity.getId());
+        resourceVersions.answersChanged(questionEntity.getUuid());
         return answerDao.createAnswer(answer);
     }
 
+    /**
+     * This method creates a list of answers to a question in a single transaction after validating the user
+     * and looking up the question once
+     * The answers are inserted in JDBC batches, the persistence context being flushed and cleared after each batch
+     * An item failing validation aborts the whole request, unless continueOnError is set in which case it is
+     * reported in its result and the other answers are created
+     *
+     * @param answers         The content of each answer to create, in the order of the request
+     * @param questionId      for the question which needs to be answered
+     * @param authorization   holds the Bearer access token for authenticating
+     * @param continueOnError true to create the valid answers when some of the items are not valid
+     * @return The result of each item, in the order of the request
+     * @throws AuthorizationFailedException If the access token provided by the user does not exist
+     *                                      in the database, If the user has signed out
+     * @throws InvalidQuestionException     If the question uuid entered by the user whose answers
+     *                                      are to be posted does not exist in the database
+     * @throws InvalidBulkRequestException  If the number of items is out of range, or an item is not valid
+     *                                      while continueOnError is not set
+     */
+    @Transactional(propagation = Propagation.REQUIRED)
+    public List<BulkItemResult> createAnswers(final List<String> answers, final String questionId, final String authorization,
+                                              final boolean continueOnError)
+            throws AuthorizationFailedException, InvalidQuestionException, InvalidBulkRequestException {
+        UserAuthEntity userAuthEntity = userBusinessService.validateUserAuthentication(authorization,
+                "User is signed out.Sign in first to post an answer");
+        bulkRequestValidator.validateItemCount(answers);
+        Question questionEntity = questionDao.getQuestionByUUID(questionId);
+        if (questionEntity == null) {
+            throw new InvalidQuestionException("QUES-001", "The question entered is invalid");
+        }
+        final User user = userAuthEntity.getUser();
+        final ZonedDateTime now = ZonedDateTime.now();
+        final List<BulkItemResult> results = new ArrayList<>(answers.size());
+        int created = 0;
+        for (int index = 0; index < answers.size(); index++) {
+            final Answer answer = new Answer();
+            answer.setUuid(UUID.randomUUID().toString());
+            answer.setAns(answers.get(index));
+            answer.setDate(now);
+            answer.setQuestion(questionEntity);
+            answer.setUser(user);
+            final String violations = bulkRequestValidator.getViolations(answer);
+            if (violations != null) {
+                if (!continueOnError) {
+                    throw new InvalidBulkRequestException("BLK-002", "Item " + index + " is not valid: " + violations);
+                }
+                results.add(BulkItemResult.failed(index, "BLK-002", violations));
+                continue;
+            }
+            answerDao.createAnswer(answer);
+            results.add(BulkItemResult.created(index, answer.getUuid()));
+            if (++created % bulkRequestValidator.getBatchSize() == 0) {
+                answerDao.flushAndClear();
+            }
+        }
+        if (created > 0) {
+            listingCache.invalidateAnswersTo(questionEntity.getId());
+            resourceVersions.answersChanged(questionEntity.getUuid());
+        }
+        return results;
+    }
+
     /**
      * This method is used to edit answer content
      * checks for all the conditions and provides necessary response messages
+     * The ownership is checked by the update statement itself, the answer is only looked up again when
+     * nothing was updated, to tell a missing answer from an answer owned by another user
      *
      * @param answer        entity that needed to be updated
      * @param answerId      Is the uuid of the answer that needed to be edited
      * @param authorization holds the Bearer access token for authenticating
-     * @return the answer after updating the content
+     * @return the uuid of the answer after updating the content
      * @throws AuthorizationFailedException if access token does not exit, if user has signed out, if non-owner tries to edit
      * @throws AnswerNotFoundException      if answer with uuid which is to be edited does not exist in the database
      */
     @Transactional(propagation = Propagation.REQUIRED)
-    public Answer editAnswerContent(final Answer answer, final String answerId, final String authorization)
+    public String editAnswerContent(final Answer answer, final String answerId, final String authorization)
             throws AuthorizationFailedException, AnswerNotFoundException {
         UserAuthEntity userAuthEntity = userBusinessService.validateUserAuthentication(authorization,
                 "User is signed out.Sign in first to edit an answer");
-        Answer answerEntity = answerDao.getAnswerByUUID(answerId);
-        // If the answer with uuid which is to be edited does not exist in the database, throw 'AnswerNotFoundException'
-        if (answerEntity == null) {
-            throw new AnswerNotFoundException("ANS-001", "Entered answer uuid does not exist");
-        } else {
-            // if the user who is not the owner of the answer tries to edit the answer throw "AuthorizationFailedException"
-            if (answerEntity.getUser().getId() != userAuthEntity.getUser().getId()) {
-                throw new AuthorizationFailedException("ATHR-003", "Only the answer owner can edit the answer");
+        // The statement bypasses the validation done on flush, so the content is validated beforehand
+        final Set<ConstraintViolation<Answer>> violations = validator.validateValue(Answer.class, "ans", answer.getAns());
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+        final ModifiedAnswer updatedAnswer = answerDao.updateOwnAnswerContent(answerId, userAuthEntity.getUser().getId(), answer.getAns());
+        if (updatedAnswer == null) {
+            // If the answer with uuid which is to be edited does not exist in the database, throw 'AnswerNotFoundException'
+            if (!answerDao.answerExists(answerId)) {
+                throw new AnswerNotFoundException("ANS-001", "Entered answer uuid does not exist");
             }
+            // if the user who is not the owner of the answer tries to edit the answer throw "AuthorizationFailedException"
+            throw new AuthorizationFailedException("ATHR-003", "Only the answer owner can edit the answer");
         }
-        answerEntity.setAns(answer.getAns());
-        return answerDao.updateAnswerContent(answerEntity);
+        listingCache.invalidateAnswersTo(updatedAnswer.getQuestionId());
+        resourceVersions.answersChanged(updatedAnswer.getQuestionUuid());
+        return updatedAnswer.getUuid();
     }
 
     /**
      * This method validates Authorization for the user and returns the Id of the deleted answer
+     * The ownership is checked by the delete statement itself, the answer is only looked up again when
+     * nothing was deleted, to tell a missing answer from an answer owned by another user
      *
      * @param answerId      UUid for particular answer
      * @param authorization holds the Bearer access token for authenticating
@@ -102,45 +243,159 @@ public class AnswerBusinessService {
      */
     @Transactional(propagation = Propagation.REQUIRED)
     public String deleteAnswer(String answerId, String authorization)
-            throws AuthorizationFailedException, InvalidQuestionException, AnswerNotFoundException {
+            throws AuthorizationFailedException, AnswerNotFoundException {
         final UserAuthEntity userAuthEntity = userBusinessService.validateUserAuthentication(authorization,
                 "User is signed out.Sign in first to delete an answer");
-
-        Answer answer = answerDao.getAnswerByUUID(answerId);
-        // If the answer with uuid which is to be deleted does not exist in the database
-        if (answer == null) {
-            throw new AnswerNotFoundException("ANS-001", "Entered answer uuid does not exist");
-        }
-        if (QuoraUtil.ADMIN_ROLE.equalsIgnoreCase(userAuthEntity.getUser().getRole())
-                || answer.getUser().getId() == userAuthEntity.getUser().getId()) {
-            answerDao.deleteAnswer(answer);
-            return answer.getUuid();
+        final boolean isAdmin = QuoraUtil.ADMIN_ROLE.equalsIgnoreCase(userAuthEntity.getUser().getRole());
+        final ModifiedAnswer deletedAnswer = answerDao.deleteAnswer(answerId, userAuthEntity.getUser().getId(), isAdmin);
+        if (deletedAnswer == null) {
+            // If the answer with uuid which is to be deleted does not exist in the database
+            if (!answerDao.answerExists(answerId)) {
+                throw new AnswerNotFoundException("ANS-001", "Entered answer uuid does not exist");
+            }
+            /*
+             * Only the answer owner or admin can delete the answer. Therefore, if the user who is not the owner of the answer or the role of the user is ‘nonadmin’
+             * and tries to delete the answer throw "AuthorizationFailedException"
+             */
+            throw new AuthorizationFailedException("ATHR-003", "Only the answer owner or admin can delete the answer");
         }
-        /*
-         * Only the answer owner or admin can delete the answer. Therefore, if the user who is not the owner of the answer or the role of the user is ‘nonadmin’
-         * and tries to delete the answer throw "AuthorizationFailedException"
-         */
-        throw new AuthorizationFailedException("ATHR-003", "Only the answer owner or admin can delete the answer");
+        listingCache.invalidateAnswersTo(deletedAnswer.getQuestionId());
+        resourceVersions.answersChanged(deletedAnswer.getQuestionUuid());
+        return deletedAnswer.getUuid();
     }
 
     /**
-     * This method fetches all the answers posted to a Specific question referred by questionId
-     * after validating the authorization token
+     * This method validates the authorization token and looks up the question before its answers are listed
+     * or streamed to the client. Kept apart from the streaming itself, which runs after the response has been
+     * committed and cannot report a failure anymore
      *
      * @param questionId    The UUID of the question for which answers are to be retrieved
      * @param authorization holds the Bearer access token for authenticating the user
-     * @return The list of all answers posted for a specific question
+     * @return The question whose answers are to be retrieved
      * @throws AuthorizationFailedException If the token is not present in DB or user already logged out
      * @throws InvalidQuestionException     If the Question with the uuid passed doesn't exist in DB
      */
-    public List<Answer> getAllAnswersToQuestion(String questionId, String authorization) throws AuthorizationFailedException, InvalidQuestionException {
+    @Transactional(readOnly = true)
+    public Question getQuestionForAnswerListing(String questionId, String authorization) throws AuthorizationFailedException, InvalidQuestionException {
         userBusinessService.validateUserAuthentication(authorization,
                 "User is signed out.Sign in first to get the answers");
         final Question question = questionDao.getQuestionByUUID(questionId);
         if (question == null) {
             throw new InvalidQuestionException("QUES-001", "The question with entered uuid whose details are to be seen does not exist");
         }
-        return answerDao.getAllAnswersByQuestionId(question.getId());
+        return question;
     }
-}
 
+    /**
+     * This method returns the entity tag of the current version of the answer listing of the question, so that
+     * a client already holding it can be answered without loading the answers
+     * The tag is to be taken before the question is looked up, the access is validated by getQuestionForAnswerListing
+     * before the tag is compared
+     *
+     * @param questionId The UUID of the question
+     * @return The entity tag of the answer listing
+     */
+    public String getAllAnswersToQuestionTag(String questionId) {
+        return resourceVersions.answersTag(questionId);
+    }
+
+    /**
+     * This method fetches a page of the summaries of the answers posted to a Specific question in the sort order
+     * The question is looked up and the access validated beforehand by getQuestionForAnswerListing
+     * The first page in the default order and page size, the one most clients stop at, is served from the listing cache
+     *
+     * @param questionId The Id attribute of the question whose answers are to be retrieved
+     * @param limit      The maximum number of answers in the page, the configured default if null
+     * @param after      The cursor returned with the previous page, null or empty for the first page
+     * @param sort       The sort order, newest or oldest, oldest first if null or empty
+     * @return The page of the summaries of the answers along with the cursor to the next page
+     * @throws InvalidPaginationException If the limit is out of range, the cursor or the sort order is not valid
+     */
+    @Transactional(readOnly = true)
+    public Page<AnswerSummary> getAnswersToQuestion(Integer questionId, Integer limit, String after, String sort)
+            throws InvalidPaginationException {
+        final int pageSize = getPageSize(limit);
+        final SortOrder sortOrder = SortOrder.parse(sort, DEFAULT_SORT_ORDER);
+        if (after == null || after.isEmpty()) {
+            if (sortOrder == DEFAULT_SORT_ORDER && pageSize == defaultPageSize) {
+                return listingCache.answersByQuestion().get(questionId, () -> getAnswersPage(questionId, sortOrder, null, pageSize));
+            }
+            return getAnswersPage(questionId, sortOrder, null, pageSize);
+        }
+        return getAnswersPage(questionId, sortOrder, PageCursor.decode(after), pageSize);
+    }
+
+    /**
+     * This method counts the answers posted to the question
+     * The answers are counted exactly up to the configured limit, beyond which counting them would read a large part
+     * of the index. The count is then estimated from the statistics of the database, and never below the limit
+     *
+     * @param questionId The Id attribute of the question whose answers are to be counted
+     * @return The number of answers to the question, telling whether it is exact or estimated
+     */
+    @Transactional(readOnly = true)
+    public TotalCount countAnswersToQuestion(Integer questionId) {
+        final long count = answerDao.countAnswersUpTo(questionId, exactCountLimit + 1);
+        if (count <= exactCountLimit) {
+            return TotalCount.exact(count);
+        }
+        return TotalCount.estimated(Math.max(answerDao.estimateAnswerCount(questionId), count));
+    }
+
+    /**
+     * This method pulls the page of answer summaries after the cursor
+     *
+     * @param questionId The Id attribute of the question whose answers are to be retrieved
+     * @param sortOrder  The order of the answers
+     * @param cursor     The position of the last answer of the previous page, null for the first page
+     * @param pageSize   The maximum number of answers in the page
+     * @return The page of the summaries of the answers along with the cursor to the next page
+     */
+    private Page<AnswerSummary> getAnswersPage(Integer questionId, SortOrder sortOrder, PageCursor cursor, int pageSize) {
+        // One answer more than the page size tells whether a next page exists
+        final List<AnswerSummary> answers = answerDao.getAnswersPage(questionId, sortOrder, cursor, pageSize + 1);
+        if (answers.size() <= pageSize) {
+            return new Page<>(Collections.unmodifiableList(answers), null);
+        }
+        final List<AnswerSummary> content = Collections.unmodifiableList(new ArrayList<>(answers.subList(0, pageSize)));
+        final AnswerSummary last = content.get(pageSize - 1);
+        return new Page<>(content, new PageCursor(last.getDate(), last.getId()));
+    }
+
+    /**
+     * This method validates the page size requested by the client
+     *
+     * @param limit The page size requested, null for the default
+     * @return The page size to use
+     * @throws InvalidPaginationException If the limit is out of range
+     */
+    private int getPageSize(Integer limit) throws InvalidPaginationException {
+        final int pageSize = limit == null ? defaultPageSize : limit;
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            throw new InvalidPaginationException("PAG-001", "Page limit should be between 1 and " + maxPageSize);
+        }
+        return pageSize;
+    }
+
+    /**
+     * This method streams the summaries of all the answers posted to the question to the handler, oldest first
+     * The rows are read in keyset paginated chunks, each in a short read only transaction of its own, and handed to
+     * the handler once the transaction has ended. A slow client thus never holds a connection or a snapshot open
+     *
+     * @param questionId The Id attribute of the question whose answers are streamed
+     * @param handler    The callback writing out each answer summary
+     * @throws IOException If the handler failed to write out an answer, for instance when the client went away
+     */
+    public void streamAllAnswersToQuestion(Integer questionId, RowHandler<AnswerSummary> handler) throws IOException {
+        PageCursor cursor = null;
+        do {
+            final PageCursor after = cursor;
+            final Page<AnswerSummary> chunk = streamingChunkTransaction.execute(
+                    status -> getAnswersPage(questionId, SortOrder.OLDEST, after, streamingFetchSize));
+            for (AnswerSummary answer : chunk.getContent()) {
+                handler.handle(answer);
+            }
+            cursor = chunk.getNextCursor();
+        } while (cursor != null);
+    }
+}
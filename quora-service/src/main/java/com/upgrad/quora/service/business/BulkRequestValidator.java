@@ -0,0 +1,71 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.exception.InvalidBulkRequestException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Checks the bulk creation requests before anything is written
+ * The entities of the items are validated against their bean validation constraints up front, so that an invalid
+ * item is reported on its own instead of failing the flush of the whole batch it was inserted with
+ */
+@Component
+public class BulkRequestValidator {
+
+    @Autowired
+    private Validator validator;
+
+    @Value("${quora.bulk.max-items:1000}")
+    private int maxItems;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    /**
+     * This method checks the number of items of a bulk request
+     *
+     * @param items The items of the bulk request
+     * @throws InvalidBulkRequestException If there is no item or more than the configured maximum
+     */
+    public void validateItemCount(List<?> items) throws InvalidBulkRequestException {
+        if (items == null || items.isEmpty() || items.size() > maxItems) {
+            throw new InvalidBulkRequestException("BLK-001", "A bulk request should hold between 1 and " + maxItems + " items");
+        }
+    }
+
+    /**
+     * This method validates the entity built for an item of a bulk request
+     *
+     * @param entity The entity to be persisted for the item
+     * @return The description of the constraint violations of the entity, null if it is valid
+     */
+    public String getViolations(Object entity) {
+        final Set<ConstraintViolation<Object>> violations = validator.validate(entity);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        final StringBuilder sb = new StringBuilder();
+        for (ConstraintViolation<Object> violation : violations) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(violation.getPropertyPath()).append(" ").append(violation.getMessage());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * This method tells the number of entities persisted between two flushes of a bulk request, the JDBC batch size
+     *
+     * @return The number of entities per batch
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+}
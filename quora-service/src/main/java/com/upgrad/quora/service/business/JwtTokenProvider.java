@@ -1,12 +1,14 @@
 package com.upgrad.quora.service.business;
 
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
 import com.upgrad.quora.service.common.GenericErrorCode;
 import com.upgrad.quora.service.common.UnexpectedException;
 
 import java.time.ZonedDateTime;
-import java.time.temporal.ChronoField;
 import java.util.Date;
 import java.util.UUID;
 
@@ -16,10 +18,14 @@ import java.util.UUID;
 public class JwtTokenProvider {
     private static final String TOKEN_ISSUER = "https://quora.io";
 
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLE_CLAIM = "role";
+
     private final Algorithm algorithm;
 
     /**
      * A constructor for JwtTokenProvider class which receives user password as an argument to be used in the signature part of JWT access token.
+     * In the stateless token mode the server wide signing key is passed instead of the user password.
      */
     public JwtTokenProvider(final String secret) {
         try {
@@ -42,8 +48,8 @@ public class JwtTokenProvider {
      */
     public String generateToken(final String userUuid, final ZonedDateTime issuedDateTime, final ZonedDateTime expiresDateTime) {
 
-        final Date issuedAt = new Date(issuedDateTime.getLong(ChronoField.INSTANT_SECONDS));
-        final Date expiresAt = new Date(expiresDateTime.getLong(ChronoField.INSTANT_SECONDS));
+        final Date issuedAt = Date.from(issuedDateTime.toInstant());
+        final Date expiresAt = Date.from(expiresDateTime.toInstant());
 
         return JWT.create().withIssuer(TOKEN_ISSUER) //
                 .withKeyId(UUID.randomUUID().toString())
@@ -51,4 +57,44 @@ public class JwtTokenProvider {
                 .withIssuedAt(issuedAt).withExpiresAt(expiresAt).sign(algorithm);
     }
 
+    /**
+     * This method generates a self contained JWT token, along with the standard claims the id and role of the user
+     * are added to the payload so that the token can be verified without looking up the database
+     *
+     * @param userUuid        - uuid of the user
+     * @param userId          - id of the user record
+     * @param role            - role of the user
+     * @param issuedDateTime  - current time
+     * @param expiresDateTime - expiry time of the JWT token
+     * @return - generated JWT token
+     */
+    public String generateToken(final String userUuid, final Integer userId, final String role,
+                                final ZonedDateTime issuedDateTime, final ZonedDateTime expiresDateTime) {
+        return JWT.create().withIssuer(TOKEN_ISSUER) //
+                .withJWTId(UUID.randomUUID().toString())
+                .withAudience(userUuid) //
+                .withClaim(USER_ID_CLAIM, userId)
+                .withClaim(ROLE_CLAIM, role)
+                .withIssuedAt(Date.from(issuedDateTime.toInstant()))
+                .withExpiresAt(Date.from(expiresDateTime.toInstant())).sign(algorithm);
+    }
+
+    /**
+     * This method verifies the signature, issuer and expiry of the JWT token and checks that the token
+     * is issued to a user (audience)
+     *
+     * @param token - the JWT token to be verified
+     * @return - the decoded JWT token
+     * @throws JWTVerificationException if the token is malformed, tampered, expired or has no audience
+     */
+    public DecodedJWT verifyToken(final String token) throws JWTVerificationException {
+        final JWTVerifier verifier = JWT.require(algorithm).withIssuer(TOKEN_ISSUER).build();
+        final DecodedJWT decodedJWT = verifier.verify(token);
+        if (decodedJWT.getAudience() == null || decodedJWT.getAudience().isEmpty()
+                || decodedJWT.getExpiresAt() == null) {
+            throw new JWTVerificationException("The token is not issued to any user");
+        }
+        return decodedJWT;
+    }
+
 }
@@ -1,25 +1,93 @@
 package com.upgrad.quora.service.business;
 
 
-import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
-import java.security.spec.InvalidKeySpecException;
 import java.util.Base64;
+import java.util.List;
 import java.util.Random;
-import javax.crypto.SecretKey;
-import javax.crypto.SecretKeyFactory;
-import javax.crypto.spec.PBEKeySpec;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
+import com.upgrad.quora.service.common.GenericErrorCode;
+import com.upgrad.quora.service.common.UnexpectedException;
+import com.upgrad.quora.service.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 
+/**
+ * Hashes the passwords with PBKDF2 on a dedicated pool of threads sized to the number of cores
+ * Sign in and sign up requests wait for the hash on the request thread, but the CPU spent on hashing is
+ * bounded by the pool so that the other endpoints keep being served during a login storm. Once the queue
+ * of the pool is full the request is shed right away with a ServiceUnavailableException
+ * The hashing itself is delegated to the PasswordHasher configured by "quora.password.hashing.algorithm", the stored
+ * hashes of the other registered schemes can still be verified
+ */
 @Component
 public class PasswordCryptographyProvider {
 
-    private static String SECRET_KEY_ALGORITHM = "PBKDF2WithHmacSHA512";
-    private static int HASHING_ITERATIONS = 1000;
-    private static int HASHING_KEY_LENGTH = 64;
-    private final static char[] hexArray = "0123456789ABCDEF".toCharArray();
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private List<PasswordHasher> passwordHashers;
+
+    @Value("${quora.password.hashing.algorithm:" + Pbkdf2PasswordHasher.ID + "}")
+    private String hashingAlgorithm;
+
+    @Value("${quora.password.hashing.threads:0}")
+    private int hashingThreads;
+
+    @Value("${quora.password.hashing.queue-capacity:64}")
+    private int hashingQueueCapacity;
+
+    @Value("${quora.password.hashing.timeout-ms:5000}")
+    private long hashingTimeoutMillis;
+
+    private PasswordHasher currentHasher;
+
+    private ThreadPoolExecutor hashingExecutor;
+
+    private Timer hashingTimer;
+
+    private Counter rejectedCounter;
+
+    @PostConstruct
+    public void init() {
+        currentHasher = passwordHashers.stream().filter(hasher -> hasher.getId().equals(hashingAlgorithm)).findFirst()
+                .orElseThrow(() -> new IllegalStateException("No password hasher registered for " + hashingAlgorithm));
+        final int threads = hashingThreads > 0 ? hashingThreads : Runtime.getRuntime().availableProcessors();
+        hashingExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(hashingQueueCapacity), new HashingThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+        hashingTimer = Timer.builder("quora.password.hashing.latency")
+                .description("Time spent hashing a password").register(meterRegistry);
+        rejectedCounter = Counter.builder("quora.password.hashing.rejected")
+                .description("Hashing requests shed as the hashing queue was full").register(meterRegistry);
+        Gauge.builder("quora.password.hashing.queue.depth", hashingExecutor, executor -> executor.getQueue().size())
+                .description("Hashing requests waiting for a hashing thread").register(meterRegistry);
+        Gauge.builder("quora.password.hashing.active", hashingExecutor, ThreadPoolExecutor::getActiveCount)
+                .description("Hashing threads busy hashing").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashingExecutor.shutdownNow();
+    }
 
     /**
      * This method generates Salt and hashed Password
@@ -29,61 +97,87 @@ public class PasswordCryptographyProvider {
      */
     public String[] encrypt(final String password) {
         byte[] salt = generateSaltBytes();
-        byte[] hashedPassword = hashPassword(password.toCharArray(), salt);
-        return new String[]{getBase64EncodedBytesAsString(salt), bytesToHex(hashedPassword)};
+        String hashedPassword = runOnHashingPool(() -> currentHasher.hash(password.toCharArray(), salt));
+        return new String[]{getBase64EncodedBytesAsString(salt), hashedPassword};
     }
 
     /**
-     * This method re-generates hashed Password from raw-password and salt.
+     * This method verifies the raw-password against the hashed Password and salt stored for the user.
      * This will be used during authentication.
      *
-     * @param password char array.
-     * @param salt     byte array.
-     * @return byte array of hashed password.
+     * @param password       raw password entered by the user.
+     * @param salt           encoded salt stored for the user.
+     * @param hashedPassword hashed password stored for the user.
+     * @return true if the password matches, false otherwise.
      */
-    public static String encrypt(final String password, String salt) {
-        return bytesToHex(hashPassword(password.toCharArray(), getBase64DecodedStringAsBytes(salt)));
+    public boolean matches(final String password, final String salt, final String hashedPassword) {
+        final byte[] saltBytes = getBase64DecodedStringAsBytes(salt);
+        final PasswordHasher passwordHasher = getHasher(hashedPassword);
+        return runOnHashingPool(() -> passwordHasher.matches(password.toCharArray(), saltBytes, hashedPassword));
     }
 
     /**
-     * This method generates Salt
+     * This method checks if the hashed Password is to be upgraded to the current hashing scheme and cost parameters.
      *
-     * @return 32 bytes long array
+     * @param hashedPassword hashed password stored for the user.
+     * @return true if the password is to be hashed again, false otherwise.
      */
-    private static byte[] generateSaltBytes() {
-        final Random random = new SecureRandom();
-        byte[] saltBytes = new byte[32];
-        random.nextBytes(saltBytes);
-        return saltBytes;
+    public boolean needsRehash(final String hashedPassword) {
+        final PasswordHasher passwordHasher = getHasher(hashedPassword);
+        return passwordHasher != currentHasher || passwordHasher.needsRehash(hashedPassword);
+    }
+
+    private PasswordHasher getHasher(final String hashedPassword) {
+        for (PasswordHasher passwordHasher : passwordHashers) {
+            if (passwordHasher.supports(hashedPassword)) {
+                return passwordHasher;
+            }
+        }
+        throw new UnexpectedException(GenericErrorCode.GEN_001);
     }
 
     /**
-     * This method generates hashed Password
+     * This method hands the hashing over to the hashing pool and waits for the result
      *
-     * @param password char array.
-     * @param salt     byte array.
-     * @return byte array of hashed password.
+     * @param hashing the hashing task.
+     * @return the result of the hashing task.
+     * @throws ServiceUnavailableException if the hashing queue is full or the hash isn't ready in time
      */
-    private static byte[] hashPassword(final char[] password, final byte[] salt) {
+    private <T> T runOnHashingPool(final Callable<T> hashing) {
+        final Future<T> result;
+        try {
+            result = hashingExecutor.submit(() -> hashingTimer.recordCallable(hashing));
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new ServiceUnavailableException("GEN-002", "Server is busy, please try again later");
+        }
         try {
-            SecretKeyFactory skf = SecretKeyFactory.getInstance(SECRET_KEY_ALGORITHM);
-            PBEKeySpec spec = new PBEKeySpec(password, salt, HASHING_ITERATIONS, HASHING_KEY_LENGTH);
-            SecretKey key = skf.generateSecret(spec);
-            byte[] res = key.getEncoded();
-            return res;
-        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
-            throw new RuntimeException(e);
+            return result.get(hashingTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            throw new ServiceUnavailableException("GEN-002", "Server is busy, please try again later");
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new UnexpectedException(GenericErrorCode.GEN_001, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new UnexpectedException(GenericErrorCode.GEN_001, e.getCause());
         }
     }
 
-    private static String bytesToHex(byte[] bytes) {
-        char[] hexChars = new char[bytes.length * 2];
-        for (int j = 0; j < bytes.length; j++) {
-            int v = bytes[j] & 0xFF;
-            hexChars[j * 2] = hexArray[v >>> 4];
-            hexChars[j * 2 + 1] = hexArray[v & 0x0F];
-        }
-        return new String(hexChars);
+    /**
+     * This method generates Salt
+     *
+     * @return 32 bytes long array
+     */
+    private static byte[] generateSaltBytes() {
+        final Random random = new SecureRandom();
+        byte[] saltBytes = new byte[32];
+        random.nextBytes(saltBytes);
+        return saltBytes;
     }
 
     private static String getBase64EncodedBytesAsString(byte bytes[]) {
@@ -93,6 +187,17 @@ public class PasswordCryptographyProvider {
     private static byte[] getBase64DecodedStringAsBytes(String decode) {
         return Base64.getDecoder().decode(decode);
     }
+
+    private static final class HashingThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
 }
 
 
@@ -0,0 +1,45 @@
+package com.upgrad.quora.service.business;
+
+/**
+ * SPI for the password hashing schemes
+ * Every implementation writes its own self describing encoding (scheme id and cost parameters along with the hash),
+ * so that the stored passwords hashed with older schemes or parameters can still be verified and upgraded on login
+ */
+public interface PasswordHasher {
+
+    /**
+     * @return The id of the hashing scheme, used to pick the scheme for new hashes
+     */
+    String getId();
+
+    /**
+     * This method hashes the password with the current cost parameters of the scheme
+     *
+     * @param password char array.
+     * @param salt     byte array.
+     * @return The encoded hash holding the scheme id and cost parameters
+     */
+    String hash(char[] password, byte[] salt);
+
+    /**
+     * @param encodedPassword The hashed password as stored in the database
+     * @return true if the stored password is hashed with this scheme, false otherwise
+     */
+    boolean supports(String encodedPassword);
+
+    /**
+     * This method verifies the password against the stored hash, using the cost parameters the hash was created with
+     *
+     * @param password        char array.
+     * @param salt            byte array.
+     * @param encodedPassword The hashed password as stored in the database
+     * @return true if the password matches, false otherwise
+     */
+    boolean matches(char[] password, byte[] salt, String encodedPassword);
+
+    /**
+     * @param encodedPassword The hashed password as stored in the database
+     * @return true if the stored hash is in an older format or uses cost parameters other than the current ones
+     */
+    boolean needsRehash(String encodedPassword);
+}
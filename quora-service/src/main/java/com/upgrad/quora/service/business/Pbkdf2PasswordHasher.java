@@ -0,0 +1,163 @@
+package com.upgrad.quora.service.business;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+
+/**
+ * PBKDF2WithHmacSHA512 password hashing
+ * Hashes are encoded as "$pbkdf2-sha512$i=ITERATIONS,l=KEY_LENGTH$HEX_HASH". The plain hex hashes without the prefix
+ * are the legacy format hashed with 1000 iterations and a 64 bit key, they are still verified and flagged for rehash.
+ * Unless the iterations are configured, they are calibrated at startup to reach the target hash latency on this hardware
+ */
+@Component
+public class Pbkdf2PasswordHasher implements PasswordHasher {
+
+    public static final String ID = "pbkdf2-sha512";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Pbkdf2PasswordHasher.class);
+
+    private static final String PREFIX = "$" + ID + "$";
+    private static final String SECRET_KEY_ALGORITHM = "PBKDF2WithHmacSHA512";
+    private static final int LEGACY_ITERATIONS = 1000;
+    private static final int LEGACY_KEY_LENGTH = 64;
+    private static final int CALIBRATION_ROUNDS = 5;
+    private final static char[] hexArray = "0123456789ABCDEF".toCharArray();
+
+    // SecretKeyFactory is not thread safe, so every hashing thread reuses its own instance
+    private static final ThreadLocal<SecretKeyFactory> SECRET_KEY_FACTORY = ThreadLocal.withInitial(() -> {
+        try {
+            return SecretKeyFactory.getInstance(SECRET_KEY_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    });
+
+    @Value("${quora.password.hashing.pbkdf2.iterations:0}")
+    private int configuredIterations;
+
+    @Value("${quora.password.hashing.pbkdf2.min-iterations:10000}")
+    private int minIterations;
+
+    @Value("${quora.password.hashing.pbkdf2.key-length:512}")
+    private int keyLength;
+
+    @Value("${quora.password.hashing.target-latency-ms:50}")
+    private long targetLatencyMillis;
+
+    private int iterations;
+
+    @PostConstruct
+    public void init() {
+        iterations = configuredIterations > 0 ? configuredIterations : calibrate();
+        LOGGER.info("Hashing passwords with {} using {} iterations and a {} bit key", ID, iterations, keyLength);
+    }
+
+    @Override
+    public String getId() {
+        return ID;
+    }
+
+    @Override
+    public String hash(final char[] password, final byte[] salt) {
+        return PREFIX + "i=" + iterations + ",l=" + keyLength + "$" + bytesToHex(derive(password, salt, iterations, keyLength));
+    }
+
+    @Override
+    public boolean supports(final String encodedPassword) {
+        return encodedPassword.startsWith(PREFIX) || isLegacy(encodedPassword);
+    }
+
+    @Override
+    public boolean matches(final char[] password, final byte[] salt, final String encodedPassword) {
+        final String expectedHash;
+        final String actualHash;
+        if (isLegacy(encodedPassword)) {
+            expectedHash = encodedPassword;
+            actualHash = bytesToHex(derive(password, salt, LEGACY_ITERATIONS, LEGACY_KEY_LENGTH));
+        } else {
+            final int[] parameters = parseParameters(encodedPassword);
+            expectedHash = encodedPassword.substring(encodedPassword.lastIndexOf('$') + 1);
+            actualHash = bytesToHex(derive(password, salt, parameters[0], parameters[1]));
+        }
+        return MessageDigest.isEqual(expectedHash.toUpperCase().getBytes(StandardCharsets.US_ASCII),
+                actualHash.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Override
+    public boolean needsRehash(final String encodedPassword) {
+        if (isLegacy(encodedPassword)) {
+            return true;
+        }
+        // Only weaker hashes are upgraded, the calibrated iterations differ between instances and restarts and a
+        // hash made with more iterations elsewhere must not be downgraded or rewritten back and forth
+        final int[] parameters = parseParameters(encodedPassword);
+        return parameters[0] < iterations || parameters[1] < keyLength;
+    }
+
+    /**
+     * This method measures the hashing speed of this machine and picks the iterations which take the target latency,
+     * rounded to thousands and never below the configured minimum
+     *
+     * @return The number of iterations to hash the passwords with
+     */
+    private int calibrate() {
+        final char[] password = "calibration".toCharArray();
+        final byte[] salt = new byte[32];
+        long fastestNanos = Long.MAX_VALUE;
+        for (int round = 0; round < CALIBRATION_ROUNDS; round++) {
+            final long start = System.nanoTime();
+            derive(password, salt, minIterations, keyLength);
+            fastestNanos = Math.min(fastestNanos, System.nanoTime() - start);
+        }
+        final long targetNanos = targetLatencyMillis * 1_000_000L;
+        final long calibrated = minIterations * targetNanos / Math.max(fastestNanos, 1L);
+        final long rounded = (calibrated / 1000L) * 1000L;
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(minIterations, rounded));
+    }
+
+    /**
+     * Parses the cost parameters of the "$pbkdf2-sha512$i=ITERATIONS,l=KEY_LENGTH$HEX_HASH" encoding
+     *
+     * @return int array with [0] iterations [1] key length
+     */
+    private static int[] parseParameters(final String encodedPassword) {
+        final String[] parts = encodedPassword.substring(PREFIX.length()).split("\\$");
+        final String[] parameters = parts[0].split(",");
+        return new int[]{Integer.parseInt(parameters[0].substring(2)), Integer.parseInt(parameters[1].substring(2))};
+    }
+
+    private static boolean isLegacy(final String encodedPassword) {
+        return !encodedPassword.startsWith("$");
+    }
+
+    private static byte[] derive(final char[] password, final byte[] salt, final int iterations, final int keyLength) {
+        final PBEKeySpec spec = new PBEKeySpec(password, salt, iterations, keyLength);
+        try {
+            return SECRET_KEY_FACTORY.get().generateSecret(spec).getEncoded();
+        } catch (InvalidKeySpecException e) {
+            throw new RuntimeException(e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    private static String bytesToHex(byte[] bytes) {
+        char[] hexChars = new char[bytes.length * 2];
+        for (int j = 0; j < bytes.length; j++) {
+            int v = bytes[j] & 0xFF;
+            hexChars[j * 2] = hexArray[v >>> 4];
+            hexChars[j * 2 + 1] = hexArray[v & 0x0F];
+        }
+        return new String(hexChars);
+    }
+}
@@ -1,21 +1,46 @@
 package com.upgrad.quora.service.business;
 
+import com.upgrad.quora.service.cache.ListingCache;
+import com.upgrad.quora.service.cache.ResourceVersions;
+import com.upgrad.quora.service.common.Page;
+import com.upgrad.quora.service.common.PageCursor;
+import com.upgrad.quora.service.common.RowHandler;
 import com.upgrad.quora.service.dao.QuestionDao;
 import com.upgrad.quora.service.dao.UserDao;
+import com.upgrad.quora.service.dto.BulkItemResult;
+import com.upgrad.quora.service.dto.ModifiedQuestion;
+import com.upgrad.quora.service.dto.QuestionSummary;
+import com.upgrad.quora.service.dto.QuestionWithAnswers;
 import com.upgrad.quora.service.entity.Question;
 import com.upgrad.quora.service.entity.User;
 import com.upgrad.quora.service.entity.UserAuthEntity;
 import com.upgrad.quora.service.exception.AuthorizationFailedException;
+import com.upgrad.quora.service.exception.InvalidBulkRequestException;
+import com.upgrad.quora.service.exception.InvalidPaginationException;
 import com.upgrad.quora.service.exception.InvalidQuestionException;
 import com.upgrad.quora.service.exception.UserNotFoundException;
+import com.upgrad.quora.service.search.QuestionSearchIndex;
 import com.upgrad.quora.service.util.QuoraUtil;
+import com.upgrad.quora.service.util.TransactionUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.annotation.PostConstruct;
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import javax.validation.Validator;
+import java.io.IOException;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 
 @Service
 public class QuestionBusinessService {
@@ -29,6 +54,48 @@ public class QuestionBusinessService {
     @Autowired
     private UserBusinessService userBusinessService;
 
+    @Autowired
+    private AnswerBusinessService answerBusinessService;
+
+    @Autowired
+    private QuestionSearchIndex questionSearchIndex;
+
+    @Autowired
+    private ListingCache listingCache;
+
+    @Autowired
+    private ResourceVersions resourceVersions;
+
+    @Autowired
+    private BulkRequestValidator bulkRequestValidator;
+
+    @Autowired
+    private Validator validator;
+
+    @Value("${quora.pagination.default-limit:100}")
+    private int defaultPageSize;
+
+    @Value("${quora.pagination.max-limit:500}")
+    private int maxPageSize;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${quora.streaming.fetch-size:500}")
+    private int streamingFetchSize;
+
+    @Value("${quora.streaming.chunk-timeout-seconds:10}")
+    private int streamingChunkTimeoutSeconds;
+
+    private TransactionTemplate streamingChunkTransaction;
+
+    @PostConstruct
+    public void init() {
+        streamingChunkTransaction = new TransactionTemplate(transactionManager);
+        streamingChunkTransaction.setReadOnly(true);
+        streamingChunkTransaction.setTimeout(streamingChunkTimeoutSeconds);
+    }
+
     /**
      * This method first validate the user calling the validate method is UserDao
      * than this method stores the question in database if user is validated successfully
@@ -46,51 +113,275 @@ public class QuestionBusinessService {
         question.setDate(ZonedDateTime.now());
         question.setUser(userAuthEntity.getUser());
         Question createdQuestion = questionDao.createQuestion(question);
+        final QuestionSummary createdSummary = toQuestionSummary(createdQuestion);
+        TransactionUtil.afterCommit(() -> questionSearchIndex.index(createdSummary));
+        listingCache.invalidateQuestionsOf(userAuthEntity.getUser().getId());
+        resourceVersions.questionsChanged();
         return createdQuestion;
 
     }
 
     /**
-     * This method pulls all the question details from the database after validating the user authorization token
-     * If the token is not valid, throws an Authorization failure
+     * This method creates a list of questions for the user in a single transaction after validating the user once
+     * The questions are inserted in JDBC batches, the persistence context being flushed and cleared after each batch
+     * An item failing validation aborts the whole request, unless continueOnError is set in which case it is
+     * reported in its result and the other questions are created
+     *
+     * @param contents        The content of each question to create, in the order of the request
+     * @param authorization   holds the Bearer access token for authenticating the user
+     * @param continueOnError true to create the valid questions when some of the items are not valid
+     * @return The result of each item, in the order of the request
+     * @throws AuthorizationFailedException If the token is not present in DB or user already logged out
+     * @throws InvalidBulkRequestException  If the number of items is out of range, or an item is not valid
+     *                                      while continueOnError is not set
+     */
+    @Transactional(propagation = Propagation.REQUIRED)
+    public List<BulkItemResult> createQuestions(List<String> contents, String authorization, boolean continueOnError)
+            throws AuthorizationFailedException, InvalidBulkRequestException {
+        final UserAuthEntity userAuthEntity = userBusinessService.validateUserAuthentication(authorization,
+                "User is signed out.Sign in first to post a question");
+        bulkRequestValidator.validateItemCount(contents);
+        final User user = userAuthEntity.getUser();
+        final ZonedDateTime now = ZonedDateTime.now();
+        final List<BulkItemResult> results = new ArrayList<>(contents.size());
+        final List<QuestionSummary> createdSummaries = new ArrayList<>(contents.size());
+        for (int index = 0; index < contents.size(); index++) {
+            final Question question = new Question();
+            question.setUuid(UUID.randomUUID().toString());
+            question.setContent(contents.get(index));
+            question.setDate(now);
+            question.setUser(user);
+            final String violations = bulkRequestValidator.getViolations(question);
+            if (violations != null) {
+                if (!continueOnError) {
+                    throw new InvalidBulkRequestException("BLK-002", "Item " + index + " is not valid: " + violations);
+                }
+                results.add(BulkItemResult.failed(index, "BLK-002", violations));
+                continue;
+            }
+            questionDao.createQuestion(question);
+            createdSummaries.add(toQuestionSummary(question));
+            results.add(BulkItemResult.created(index, question.getUuid()));
+            if (createdSummaries.size() % bulkRequestValidator.getBatchSize() == 0) {
+                questionDao.flushAndClear();
+            }
+        }
+        if (!createdSummaries.isEmpty()) {
+            TransactionUtil.afterCommit(() -> createdSummaries.forEach(questionSearchIndex::index));
+            listingCache.invalidateQuestionsOf(user.getId());
+            resourceVersions.questionsChanged();
+        }
+        return results;
+    }
+
+    /**
+     * This method validates the user authorization token and returns the entity tag of the current version
+     * of the question feed, so that a client already holding it can be answered without loading the questions
      *
      * @param authorization holds the Bearer access token for authenticating the user
-     * @return All the Questions added in the application present in the Database
+     * @return The entity tag of the question feed
      * @throws AuthorizationFailedException If the token is not present in DB or user already logged out
      */
-    public List<Question> getAllQuestions(String authorization) throws AuthorizationFailedException {
+    @Transactional(readOnly = true)
+    public String getAllQuestionsTag(String authorization) throws AuthorizationFailedException {
         userBusinessService.validateUserAuthentication(authorization,
                 "User is signed out.Sign in first to get all questions");
-        return questionDao.getAllQuestions();
+        return resourceVersions.questionsTag();
+    }
+
+    /**
+     * This method pulls a page of the question details from the database after validating the user authorization token
+     * The questions are ordered from the latest to the oldest, the page after the cursor is returned along with the
+     * cursor to the next page. If the token is not valid, throws an Authorization failure
+     *
+     * @param authorization holds the Bearer access token for authenticating the user
+     * @param limit         The maximum number of questions in the page, the default page size if null
+     * @param after         The opaque cursor returned with the previous page, null for the first page
+     * @return The page of the summaries of the Questions added in the application present in the Database
+     * @throws AuthorizationFailedException If the token is not present in DB or user already logged out
+     * @throws InvalidPaginationException   If the limit is out of range or the cursor is not valid
+     */
+    @Transactional(readOnly = true)
+    public Page<QuestionSummary> getAllQuestions(String authorization, Integer limit, String after)
+            throws AuthorizationFailedException, InvalidPaginationException {
+        userBusinessService.validateUserAuthentication(authorization,
+                "User is signed out.Sign in first to get all questions");
+        final int pageSize = getPageSize(limit);
+        if (after == null || after.isEmpty()) {
+            return listingCache.questionFeed().get(pageSize, () -> getQuestionsPage(null, pageSize));
+        }
+        return getQuestionsPage(PageCursor.decode(after), pageSize);
+    }
+
+    /**
+     * This method pulls the page of question summaries after the cursor
+     *
+     * @param cursor   The position of the last question of the previous page, null for the first page
+     * @param pageSize The maximum number of questions in the page
+     * @return The page of the summaries of the Questions along with the cursor to the next page
+     */
+    private Page<QuestionSummary> getQuestionsPage(PageCursor cursor, int pageSize) {
+        // One question more than the page size tells whether a next page exists
+        final List<QuestionSummary> questions = questionDao.getQuestionsPage(cursor, pageSize + 1);
+        if (questions.size() <= pageSize) {
+            return new Page<>(Collections.unmodifiableList(questions), null);
+        }
+        final List<QuestionSummary> content = Collections.unmodifiableList(new ArrayList<>(questions.subList(0, pageSize)));
+        final QuestionSummary last = content.get(pageSize - 1);
+        return new Page<>(content, new PageCursor(last.getDate(), last.getId()));
+    }
+
+    /**
+     * This method searches the questions whose content matches the words of the search text after validating
+     * the user authorization token. The best matching questions come first, the page is selected by limit and offset
+     * The search is answered by the in-process search index when enabled and built, by the database otherwise
+     *
+     * @param authorization holds the Bearer access token for authenticating the user
+     * @param searchText    The plain text to search for in the question content
+     * @param matchAll      true if the questions have to contain all the words, false if any of them is enough
+     * @param limit         The maximum number of questions in the page, the default page size if null
+     * @param offset        The number of best matching questions to skip, none if null
+     * @return The summaries of the matching Questions in the requested page
+     * @throws AuthorizationFailedException If the token is not present in DB or user already logged out
+     * @throws InvalidPaginationException   If the limit or the offset is out of range
+     */
+    @Transactional(readOnly = true)
+    public List<QuestionSummary> searchQuestions(String authorization, String searchText, boolean matchAll, Integer limit, Integer offset)
+            throws AuthorizationFailedException, InvalidPaginationException {
+        userBusinessService.validateUserAuthentication(authorization,
+                "User is signed out.Sign in first to search questions");
+        final int pageSize = getPageSize(limit);
+        final int skipped = offset == null ? 0 : offset;
+        if (skipped < 0) {
+            throw new InvalidPaginationException("PAG-003", "Page offset should not be negative");
+        }
+        if (searchText == null || searchText.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (questionSearchIndex.isReady()) {
+            return questionSearchIndex.search(searchText, matchAll, pageSize, skipped);
+        }
+        return questionDao.searchQuestions(searchText, matchAll, pageSize, skipped);
+    }
+
+    /**
+     * This method validates the user authorization token before all the questions are streamed to the client
+     * Kept apart from the streaming itself, which runs after the response has been committed and cannot
+     * report an authorization failure anymore
+     *
+     * @param authorization holds the Bearer access token for authenticating the user
+     * @throws AuthorizationFailedException If the token is not present in DB or user already logged out
+     */
+    @Transactional(readOnly = true)
+    public void validateAllQuestionsStreaming(String authorization) throws AuthorizationFailedException {
+        userBusinessService.validateUserAuthentication(authorization,
+                "User is signed out.Sign in first to get all questions");
+    }
+
+    /**
+     * This method streams the summaries of all the questions, latest first, to the handler
+     * The rows are read in keyset paginated chunks, each in a short read only transaction of its own, and handed to
+     * the handler once the transaction has ended. A slow client thus never holds a connection or a snapshot open
+     *
+     * @param handler The callback writing out each question summary
+     * @throws IOException If the handler failed to write out a question, for instance when the client went away
+     */
+    public void streamAllQuestions(RowHandler<QuestionSummary> handler) throws IOException {
+        PageCursor cursor = null;
+        do {
+            final PageCursor after = cursor;
+            final Page<QuestionSummary> chunk = streamingChunkTransaction.execute(status -> getQuestionsPage(after, streamingFetchSize));
+            for (QuestionSummary question : chunk.getContent()) {
+                handler.handle(question);
+            }
+            cursor = chunk.getNextCursor();
+        } while (cursor != null);
+    }
+
+    /**
+     * This method fetches the question along with the first page of its answers after validating the user
+     * authorization token, for the page of the question to be rendered from a single request
+     * The token, the question and the answers are read within one read only transaction, on a single connection
+     * The first page in the default order and page size is served from the answer listing cache
+     *
+     * @param questionId    The UUID of the question to be retrieved
+     * @param authorization holds the Bearer access token for authenticating the user
+     * @param limit         The maximum number of answers in the page, the configured default if null
+     * @param sort          The sort order of the answers, newest or oldest, oldest first if null or empty
+     * @return The summary of the question and the first page of the summaries of its answers
+     * @throws AuthorizationFailedException If the token is not present in DB or user already logged out
+     * @throws InvalidQuestionException     If the Question with the uuid passed doesn't exist in DB
+     * @throws InvalidPaginationException   If the limit is out of range or the sort order is not valid
+     */
+    @Transactional(readOnly = true)
+    public QuestionWithAnswers getQuestionWithAnswers(String questionId, String authorization, Integer limit, String sort)
+            throws AuthorizationFailedException, InvalidQuestionException, InvalidPaginationException {
+        userBusinessService.validateUserAuthentication(authorization,
+                "User is signed out.Sign in first to get the question");
+        final QuestionSummary question = questionDao.getQuestionSummaryByUUID(questionId);
+        if (question == null) {
+            throw new InvalidQuestionException("QUES-001", "The question with entered uuid whose details are to be seen does not exist");
+        }
+        return new QuestionWithAnswers(question, answerBusinessService.getAnswersToQuestion(question.getId(), limit, null, sort));
+    }
+
+    /**
+     * This method validates the user authorization token and returns the entity tag of the current version of the
+     * question along with its answers, so that a client already holding it can be answered without loading them
+     * The question being edited and deleted along with its answer listing, it is the tag of the answer listing
+     * The tag is to be taken before the question is looked up
+     *
+     * @param questionId    The UUID of the question
+     * @param authorization holds the Bearer access token for authenticating the user
+     * @return The entity tag of the question along with its answers
+     * @throws AuthorizationFailedException If the token is not present in DB or user already logged out
+     */
+    @Transactional(readOnly = true)
+    public String getQuestionWithAnswersTag(String questionId, String authorization) throws AuthorizationFailedException {
+        userBusinessService.validateUserAuthentication(authorization,
+                "User is signed out.Sign in first to get the question");
+        return resourceVersions.answersTag(questionId);
     }
 
     /**
      * This method is used to edit question content :
      * checks for all the conditions and provides necessary response messages
+     * The ownership is checked by the update statement itself, the question is only looked up again when
+     * nothing was updated, to tell a missing question from a question owned by another user
      *
      * @param question      entity
      * @param questionId    for the question which needs to be edited
      * @param authorization holds the Bearer access token for authenticating
-     * @return updates the question as per the questionId provided
+     * @return the uuid of the question updated as per the questionId provided
      * @throws AuthorizationFailedException if access token does not exit, if user has signed out, if non-owner tries to edit
      * @throws InvalidQuestionException     if question with uuid which is to be edited does not exist in the database
      */
     @Transactional(propagation = Propagation.REQUIRED)
-    public Question editQuestionContent(final Question question, final String questionId, final String authorization) throws AuthorizationFailedException, InvalidQuestionException {
+    public String editQuestionContent(final Question question, final String questionId, final String authorization) throws AuthorizationFailedException, InvalidQuestionException {
         UserAuthEntity userAuthEntity = userBusinessService.validateUserAuthentication(authorization,
                 "User is signed out.Sign in first to edit the question");
-        Question questionEntity = questionDao.getQuestionByUUID(questionId);
-        // If the question with uuid which is to be edited does not exist in the database, throw 'InvalidQuestionException'
-        if (questionEntity == null) {
-            throw new InvalidQuestionException("QUES-001", "Entered question uuid does not exist");
-        } else {
-            // if the user who is not the owner of the question tries to edit the question throw "AuthorizationFailedException"
-            if (questionEntity.getUser().getId() != userAuthEntity.getUser().getId()) {
-                throw new AuthorizationFailedException("ATHR-003", "Only the question owner can edit the question");
+        // The statement bypasses the validation done on flush, so the content is validated beforehand
+        final Set<ConstraintViolation<Question>> violations = validator.validateValue(Question.class, "content", question.getContent());
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+        final ModifiedQuestion updatedQuestion = questionDao.updateOwnQuestionContent(questionId,
+                userAuthEntity.getUser().getId(), question.getContent());
+        if (updatedQuestion == null) {
+            // If the question with uuid which is to be edited does not exist in the database, throw 'InvalidQuestionException'
+            if (!questionDao.questionExists(questionId)) {
+                throw new InvalidQuestionException("QUES-001", "Entered question uuid does not exist");
             }
+            // if the user who is not the owner of the question tries to edit the question throw "AuthorizationFailedException"
+            throw new AuthorizationFailedException("ATHR-003", "Only the question owner can edit the question");
         }
-        questionEntity.setContent(question.getContent());
-        return questionDao.updateQuestion(questionEntity);
+        final QuestionSummary updatedSummary = updatedQuestion.toSummary();
+        TransactionUtil.afterCommit(() -> questionSearchIndex.index(updatedSummary));
+        listingCache.invalidateQuestionsOf(updatedQuestion.getUserId());
+        resourceVersions.questionsChanged();
+        // The answer listings carry the question content
+        resourceVersions.answersChanged(updatedQuestion.getUuid());
+        return updatedQuestion.getUuid();
     }
 
     /**
@@ -102,11 +393,12 @@ public class QuestionBusinessService {
      *
      * @param userUUID      The user UUID whose questions have to be retrieved
      * @param authorization holds the Bearer access token for authenticating the user
-     * @return The list of all questions posted by the user matched with userId
+     * @return The summaries of all questions posted by the user matched with userId
      * @throws AuthorizationFailedException If the token is not present in DB or user already logged out
      * @throws UserNotFoundException        If no user id with that UUID exists in DB
      */
-    public List<Question> getAllQuestionsByUser(String userUUID, String authorization) throws AuthorizationFailedException, UserNotFoundException {
+    @Transactional(readOnly = true)
+    public List<QuestionSummary> getAllQuestionsByUser(String userUUID, String authorization) throws AuthorizationFailedException, UserNotFoundException {
         final UserAuthEntity userAuthEntity = userBusinessService.validateUserAuthentication(authorization,
                 "User is signed out.Sign in first to get all questions posted by a specific user");
         final User user = userDao.getUserByUUID(userUUID);
@@ -114,12 +406,15 @@ public class QuestionBusinessService {
         if (user == null) {
             throw new UserNotFoundException("USR-001", "User with entered uuid whose question details are to be seen does not exist");
         }
-        return questionDao.findQuestionByUserId(user.getId());
+        return listingCache.questionsByUser().get(user.getId(),
+                () -> Collections.unmodifiableList(questionDao.findQuestionByUserId(user.getId())));
     }
 
     /**
      * This method is used to delete question
      * checks for all the conditions and provides necessary response messages
+     * The ownership is checked by the delete statement itself, the question is only looked up again when
+     * nothing was deleted, to tell a missing question from a question owned by another user
      *
      * @param questionId    or the question which needs to be deleted
      * @param authorization holds the Bearer access token for authenticating
@@ -131,14 +426,46 @@ public class QuestionBusinessService {
     public String deleteQuestion(String questionId, String authorization) throws AuthorizationFailedException, InvalidQuestionException {
         final UserAuthEntity userAuthEntity = userBusinessService.validateUserAuthentication(authorization,
                 "User is signed out.Sign in first to delete a question");
-        Question question = questionDao.getQuestionByUUID(questionId);
-        if (question == null) {
-            throw new InvalidQuestionException("QUES-001", "Entered question uuid does not exist");
+        final boolean isAdmin = QuoraUtil.ADMIN_ROLE.equalsIgnoreCase(userAuthEntity.getUser().getRole());
+        final ModifiedQuestion deletedQuestion = questionDao.deleteQuestion(questionId, userAuthEntity.getUser().getId(), isAdmin);
+        if (deletedQuestion == null) {
+            if (!questionDao.questionExists(questionId)) {
+                throw new InvalidQuestionException("QUES-001", "Entered question uuid does not exist");
+            }
+            throw new AuthorizationFailedException("ATHR-003", "Only the question owner or admin can delete the question");
         }
-        if (QuoraUtil.ADMIN_ROLE.equalsIgnoreCase(userAuthEntity.getUser().getRole()) || question.getUser().getId() == userAuthEntity.getUser().getId()) {
-            questionDao.deleteQuestion(question);
-            return question.getUuid();
+        final Integer deletedQuestionId = deletedQuestion.getId();
+        TransactionUtil.afterCommit(() -> questionSearchIndex.remove(deletedQuestionId));
+        listingCache.invalidateQuestionsOf(deletedQuestion.getUserId());
+        // The answers to the question are removed along with it
+        listingCache.invalidateAnswersTo(deletedQuestionId);
+        resourceVersions.questionsChanged();
+        resourceVersions.answersChanged(deletedQuestion.getUuid());
+        return deletedQuestion.getUuid();
+    }
+
+    /**
+     * This method resolves the page size of a listing from the limit passed by the client
+     *
+     * @param limit The limit passed by the client, null if not passed
+     * @return The page size to use
+     * @throws InvalidPaginationException If the limit is out of range
+     */
+    private int getPageSize(Integer limit) throws InvalidPaginationException {
+        final int pageSize = limit == null ? defaultPageSize : limit;
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            throw new InvalidPaginationException("PAG-001", "Page limit should be between 1 and " + maxPageSize);
         }
-        throw new AuthorizationFailedException("ATHR-003", "Only the question owner or admin can delete the question");
+        return pageSize;
+    }
+
+    /**
+     * This method takes the summary of the question held by the search index
+     *
+     * @param question The question entity
+     * @return The summary of the question
+     */
+    private QuestionSummary toQuestionSummary(Question question) {
+        return new QuestionSummary(question.getId(), question.getUuid(), question.getContent(), question.getDate());
     }
 }
@@ -0,0 +1,188 @@
+package com.upgrad.quora.service.business;
+
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.upgrad.quora.service.cache.TokenRevocationRegistry;
+import com.upgrad.quora.service.dao.UserDao;
+import com.upgrad.quora.service.entity.User;
+import com.upgrad.quora.service.entity.UserAuthEntity;
+import com.upgrad.quora.service.entity.UserRevocationEntity;
+import com.upgrad.quora.service.exception.AuthorizationFailedException;
+import com.upgrad.quora.service.util.TransactionUtil;
+import com.upgrad.quora.service.util.TokenDigestUtil;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * Verifies access tokens in memory when the stateless token mode is enabled ("quora.auth.jwt.mode: stateless")
+ * Tokens are signed with a server wide key and carry the id and role of the user, so an authenticated
+ * request doesn't need the user_auth lookup. Sign-outs are tracked in the revocation registry which is
+ * fed by the local sign-outs and by polling the sign-outs done on the other instances. The deletion of a user
+ * is recorded in user_revocation, as the sessions of the user are deleted along with it, and is polled the same way
+ */
+@Component
+public class StatelessTokenAuthenticator {
+
+    public static final String STATELESS_MODE = "stateless";
+
+    @Autowired
+    private UserDao userDao;
+
+    @Autowired
+    private TokenRevocationRegistry tokenRevocationRegistry;
+
+    @Value("${quora.auth.jwt.mode:session}")
+    private String mode;
+
+    @Value("${quora.auth.jwt.signing-key:}")
+    private String signingKey;
+
+    @Value("${quora.auth.jwt.token-lifetime-hours:8}")
+    private long tokenLifetimeHours;
+
+    @Value("${quora.auth.jwt.revocation-poll-overlap-seconds:60}")
+    private long revocationPollOverlapSeconds;
+
+    private JwtTokenProvider jwtTokenProvider;
+
+    private ZonedDateTime lastRevocationPoll;
+
+    /**
+     * Loads the revocations of the last token lifetime before the authenticator serves any request, as any token
+     * signed out or revoked in that window may still be presented. The registry is empty after a restart, and the
+     * regular polls only look back the overlap window
+     */
+    @PostConstruct
+    public void init() {
+        if (isEnabled()) {
+            if (StringUtils.isBlank(signingKey)) {
+                throw new IllegalStateException("quora.auth.jwt.signing-key is required in the stateless token mode");
+            }
+            jwtTokenProvider = new JwtTokenProvider(signingKey);
+            lastRevocationPoll = ZonedDateTime.now().minusHours(tokenLifetimeHours);
+            pollRevocations();
+        }
+    }
+
+    /**
+     * @return true if the access tokens are to be verified without the user_auth lookup
+     */
+    public boolean isEnabled() {
+        return STATELESS_MODE.equalsIgnoreCase(mode);
+    }
+
+    /**
+     * Computes the expiry of an access token issued now, the same lifetime applies in the session and stateless modes
+     *
+     * @param issuedAt The sign in time
+     * @return The time after which the access token is no longer accepted
+     */
+    public ZonedDateTime getTokenExpiry(final ZonedDateTime issuedAt) {
+        return issuedAt.plusHours(tokenLifetimeHours);
+    }
+
+    /**
+     * Generates a self contained access token signed with the server wide key
+     *
+     * @param user      The user signing in
+     * @param issuedAt  The sign in time
+     * @param expiresAt The expiry of the access token
+     * @return The signed access token
+     */
+    public String generateToken(final User user, final ZonedDateTime issuedAt, final ZonedDateTime expiresAt) {
+        return jwtTokenProvider.generateToken(user.getUuid(), user.getId(), user.getRole(), issuedAt, expiresAt);
+    }
+
+    /**
+     * Verifies the signature, expiry and audience of the access token and checks it against the revocation registry
+     * The returned session holds a detached User carrying only the id, uuid and role of the user
+     *
+     * @param accessToken    The access token without the Bearer prefix
+     * @param athr002Message The message text for different scenarios of ATHR-002 error code
+     * @return The session built from the claims of the access token
+     * @throws AuthorizationFailedException if the token is invalid or expired, or if the user has signed out
+     */
+    public UserAuthEntity authenticate(final String accessToken, final String athr002Message)
+            throws AuthorizationFailedException {
+        final DecodedJWT decodedJWT;
+        try {
+            decodedJWT = jwtTokenProvider.verifyToken(accessToken);
+        } catch (JWTVerificationException e) {
+            throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
+        }
+        final String userUuid = decodedJWT.getAudience().get(0);
+        if (tokenRevocationRegistry.isRevoked(TokenDigestUtil.digest(accessToken), userUuid)) {
+            throw new AuthorizationFailedException("ATHR-002", athr002Message);
+        }
+        final User user = new User();
+        user.setId(decodedJWT.getClaim(JwtTokenProvider.USER_ID_CLAIM).asInt());
+        user.setUuid(userUuid);
+        user.setRole(decodedJWT.getClaim(JwtTokenProvider.ROLE_CLAIM).asString());
+
+        final UserAuthEntity userAuthEntity = new UserAuthEntity();
+        userAuthEntity.setUuid(userUuid);
+        userAuthEntity.setUser(user);
+        userAuthEntity.setAccessToken(accessToken);
+        userAuthEntity.setLoginAt(ZonedDateTime.ofInstant(decodedJWT.getIssuedAt().toInstant(), ZoneId.systemDefault()));
+        userAuthEntity.setExpiresAt(ZonedDateTime.ofInstant(decodedJWT.getExpiresAt().toInstant(), ZoneId.systemDefault()));
+        return userAuthEntity;
+    }
+
+    /**
+     * Revokes the access token of a session that has signed out
+     *
+     * @param userAuthEntity The session that has signed out
+     */
+    public void revoke(final UserAuthEntity userAuthEntity) {
+        if (isEnabled()) {
+            tokenRevocationRegistry.revokeToken(userAuthEntity.getAccessTokenDigest(), userAuthEntity.getExpiresAt().toInstant());
+        }
+    }
+
+    /**
+     * Revokes all the access tokens issued to the user, used when the user is deleted
+     * The revocation is recorded in the current transaction for the other instances to poll, and is registered
+     * locally once the transaction has committed. It lasts till any token issued till now has expired
+     *
+     * @param userUuid The uuid of the user
+     */
+    public void revokeUser(final String userUuid) {
+        if (isEnabled()) {
+            final ZonedDateTime now = ZonedDateTime.now();
+            final UserRevocationEntity userRevocationEntity = new UserRevocationEntity();
+            userRevocationEntity.setUserUuid(userUuid);
+            userRevocationEntity.setRevokedAt(now);
+            userRevocationEntity.setExpiresAt(getTokenExpiry(now));
+            userDao.saveUserRevocation(userRevocationEntity);
+            TransactionUtil.afterCommit(() -> tokenRevocationRegistry.revokeUser(userUuid, userRevocationEntity.getExpiresAt().toInstant()));
+        }
+    }
+
+    /**
+     * Pulls the sign-outs and user deletions done on the other instances of the application into the revocation registry
+     * The polling window overlaps with the previous one to tolerate clock skew and late commits
+     */
+    @Scheduled(fixedDelayString = "${quora.auth.jwt.revocation-poll-interval-ms:5000}")
+    public void pollRevocations() {
+        if (!isEnabled()) {
+            return;
+        }
+        final ZonedDateTime pollStartedAt = ZonedDateTime.now();
+        final ZonedDateTime since = lastRevocationPoll.minusSeconds(revocationPollOverlapSeconds);
+        for (UserAuthEntity userAuthEntity : userDao.getUserAuthLoggedOutSince(since)) {
+            tokenRevocationRegistry.revokeToken(userAuthEntity.getAccessTokenDigest(), userAuthEntity.getExpiresAt().toInstant());
+        }
+        for (UserRevocationEntity userRevocationEntity : userDao.getUserRevocationsSince(since)) {
+            tokenRevocationRegistry.revokeUser(userRevocationEntity.getUserUuid(), userRevocationEntity.getExpiresAt().toInstant());
+        }
+        tokenRevocationRegistry.purgeExpired();
+        lastRevocationPoll = pollStartedAt;
+    }
+}
@@ -1,19 +1,28 @@
 package com.upgrad.quora.service.business;
 
+import com.upgrad.quora.service.cache.ResourceVersions;
+import com.upgrad.quora.service.cache.UserAuthCache;
+import com.upgrad.quora.service.cache.UserProfileCache;
 import com.upgrad.quora.service.common.GenericErrorCode;
 import com.upgrad.quora.service.common.UnexpectedException;
 import com.upgrad.quora.service.dao.UserDao;
+import com.upgrad.quora.service.datasource.ReplicaConsistency;
+import com.upgrad.quora.service.dto.UserProfile;
 import com.upgrad.quora.service.entity.User;
 import com.upgrad.quora.service.entity.UserAuthEntity;
 import com.upgrad.quora.service.exception.*;
 import com.upgrad.quora.service.util.QuoraUtil;
+import com.upgrad.quora.service.util.TransactionUtil;
+import com.upgrad.quora.service.util.UuidUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.ZonedDateTime;
 import java.util.Base64;
+import java.util.UUID;
 
 @Service
 public class UserBusinessService {
@@ -22,18 +31,31 @@ public class UserBusinessService {
     private UserDao userDao;
     @Autowired
     private PasswordCryptographyProvider cryptographyProvider;
+    @Autowired
+    private UserAuthCache userAuthCache;
+    @Autowired
+    private StatelessTokenAuthenticator statelessTokenAuthenticator;
+    @Autowired
+    private ResourceVersions resourceVersions;
+    @Autowired
+    private UserProfileCache userProfileCache;
+    @Autowired
+    private ReplicaConsistency replicaConsistency;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
 
     /**
      * This method saves the registered user information to the Database
      * Encrypts the user password before storing in the DB
      * Checks if the existing user is trying to signup again by matching username/email
      * If so, throws error message as already username taken or already registered
+     * The password is hashed outside of any transaction, only the insert holds a database connection
+     * A concurrent signup with the same username or email is rejected by the unique constraints of the table
      *
      * @param user The user information to be saved as part of signup
      * @return The persisted user details with the id value generated
      * @throws SignUpRestrictedException if the user details matches with the existing records
      */
-    @Transactional(propagation = Propagation.REQUIRED)
     public User signup(User user) throws SignUpRestrictedException {
 
         if (userDao.getUserByUserName(user.getUserName()) != null) {
@@ -49,20 +71,27 @@ public class UserBusinessService {
             user.setPassword(encryptedText[1]);
             user.setRole(QuoraUtil.NON_ADMIN_ROLE);
         }
-        return userDao.createUser(user);
+        return transactionTemplate.execute(status -> {
+            final User createdUser = userDao.createUser(user);
+            // A lookup on a lagging replica may meanwhile cache that the user name or email is not taken
+            final Integer createdUserId = createdUser.getId();
+            replicaConsistency.afterCommit(() -> userDao.evictCachedUser(createdUserId));
+            return createdUser;
+        });
     }
 
     /**
      * This method takes the authorization string which is encoded username and password
      * If the username and password doesnot matches than it throws Authentication failed exception
      * If the username and password match than auth token is generated
+     * A password stored in an older hash format is hashed again with the current scheme
+     * The password is verified and hashed again outside of any transaction, only the writes hold a database connection
      * If the input is illegal it  throws Unexpected Exception
      *
      * @param authorization holds the basic access token used for authentication
      * @return userAuthTokenEntity that conatins acess token and user UUID
      * @throws AuthenticationFailedException if the username doesnot exists or password doesnot match
      */
-    @Transactional(propagation = Propagation.REQUIRED)
     public UserAuthEntity signIn(String authorization) throws AuthenticationFailedException {
         //this will be used to decode the request header authorization
         try {
@@ -76,19 +105,39 @@ public class UserBusinessService {
                 throw new AuthenticationFailedException("ATH-001", "This username does not exist");
             }
 
-            final String encryptedPassword = cryptographyProvider.encrypt(password, user.getSalt());
-            if (encryptedPassword.equals(user.getPassword())) {
+            if (cryptographyProvider.matches(password, user.getSalt(), user.getPassword())) {
+                // Upgrade a password hashed in an older format or with older cost parameters, now that it's known
+                final boolean rehashed = cryptographyProvider.needsRehash(user.getPassword());
+                if (rehashed) {
+                    String[] encryptedText = cryptographyProvider.encrypt(password);
+                    user.setSalt(encryptedText[0]);
+                    user.setPassword(encryptedText[1]);
+                }
 
-                JwtTokenProvider jwtTokenProvider = new JwtTokenProvider(encryptedPassword);
                 UserAuthEntity userAuthTokenEntity = new UserAuthEntity();
                 userAuthTokenEntity.setUser(user);
                 final ZonedDateTime now = ZonedDateTime.now();
-                final ZonedDateTime expiresAt = now.plusHours(8);
-                userAuthTokenEntity.setAccessToken(jwtTokenProvider.generateToken(user.getUuid(), now, expiresAt));
+                final ZonedDateTime expiresAt = statelessTokenAuthenticator.getTokenExpiry(now);
+                if (statelessTokenAuthenticator.isEnabled()) {
+                    userAuthTokenEntity.setAccessToken(statelessTokenAuthenticator.generateToken(user, now, expiresAt));
+                } else {
+                    JwtTokenProvider jwtTokenProvider = new JwtTokenProvider(user.getPassword());
+                    userAuthTokenEntity.setAccessToken(jwtTokenProvider.generateToken(user.getUuid(), now, expiresAt));
+                }
                 userAuthTokenEntity.setLoginAt(now);
                 userAuthTokenEntity.setExpiresAt(expiresAt);
                 userAuthTokenEntity.setUuid(user.getUuid());
-                return userDao.createAuthToken(userAuthTokenEntity);
+                return transactionTemplate.execute(status -> {
+                    if (rehashed) {
+                        userDao.updateUser(user);
+                        final Integer rehashedUserId = user.getId();
+                        replicaConsistency.afterCommit(() -> userDao.evictCachedUser(rehashedUserId));
+                    }
+                    userDao.createAuthToken(userAuthTokenEntity);
+                    // Warm up the session cache, the first request after sign in is then served without a lookup
+                    TransactionUtil.afterCommit(() -> userAuthCache.put(userAuthTokenEntity.getAccessToken(), userAuthTokenEntity));
+                    return userAuthTokenEntity;
+                });
 
             } else {
                 throw new AuthenticationFailedException("ATH-002", "Password failed");
@@ -117,10 +166,16 @@ public class UserBusinessService {
         if (bearerToken != null && bearerToken.length > 1) {
             authorization = bearerToken[1];
         }
-        UserAuthEntity userAuthEntity = userDao.getUserAuthToken(authorization);
+        final String accessToken = authorization;
+        UserAuthEntity userAuthEntity = userDao.getUserAuthToken(accessToken);
         if (isUserSessionValid(userAuthEntity)) {
             userAuthEntity.setLogoutAt(ZonedDateTime.now());
             userDao.updateUserAuthEntity(userAuthEntity);
+            // Drop the cached session right away and once more after commit, so that a concurrent
+            // request can't put back the session read before the logout got committed, or read from a lagging replica
+            userAuthCache.invalidate(accessToken);
+            replicaConsistency.afterCommit(() -> userAuthCache.invalidate(accessToken));
+            statelessTokenAuthenticator.revoke(userAuthEntity);
             return userAuthEntity.getUuid();
         }
         throw new SignOutRestrictedException("SGR-001", "User is not Signed in");
@@ -142,6 +197,9 @@ public class UserBusinessService {
      * Handles the token both with/without Bearer prefix in the authorization token
      * Generic method used for different scenarios, so for ATHR-002 the message text will be used
      * from the dynamic value passed in
+     * Active sessions are served from the in-process session cache, only a cache miss goes to the DB
+     * In the stateless token mode the token is verified in memory and the DB is not looked up at all
+     * Within a read only transaction routed to a replica, a token not found there is looked up once more on the primary
      *
      * @param authorization  holds the Bearer access token for authenticating the user
      * @param athr002Message The message text for different scenarios of ATHR-002 error code
@@ -155,7 +213,19 @@ public class UserBusinessService {
         if (bearerToken != null && bearerToken.length > 1) {
             authorization = bearerToken[1];
         }
-        UserAuthEntity userAuthEntity = userDao.getUserAuthToken(authorization);
+        if (statelessTokenAuthenticator.isEnabled()) {
+            return statelessTokenAuthenticator.authenticate(authorization, athr002Message);
+        }
+        UserAuthEntity userAuthEntity = userAuthCache.get(authorization);
+        if (userAuthEntity != null) {
+            return userAuthEntity;
+        }
+        final String accessToken = authorization;
+        userAuthEntity = userDao.getUserAuthToken(accessToken);
+        // A session signed in moments ago may not have reached the replica yet, the primary has the final say
+        if (userAuthEntity == null && replicaConsistency.isReplicaRead()) {
+            userAuthEntity = replicaConsistency.readFromPrimary(() -> userDao.getUserAuthToken(accessToken));
+        }
         // Token is not matched with the database records
         if (userAuthEntity == null) {
             throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
@@ -164,6 +234,7 @@ public class UserBusinessService {
         if (userAuthEntity.getLogoutAt() != null) {
             throw new AuthorizationFailedException("ATHR-002", athr002Message);
         }
+        userAuthCache.put(authorization, userAuthEntity);
         return userAuthEntity;
     }
 
@@ -189,7 +260,24 @@ public class UserBusinessService {
     }*/
 
     /**
-     * This Method is used to get User Details from the database.
+     * This Method validates the access token and returns the entity tag of the current version of the user profile,
+     * so that a client already holding it can be answered without loading the user
+     *
+     * @param userUuid      user id of the profile
+     * @param authorization holds the Bearer access token for authenticating
+     * @return The entity tag of the user profile
+     * @throws AuthorizationFailedException If the access token provided by the user does not exist in the database,
+     *                                      If the user has signed out
+     */
+    @Transactional(readOnly = true)
+    public String getUserTag(final String userUuid, final String authorization) throws AuthorizationFailedException {
+        validateUserAuthentication(authorization, "User is signed out.Sign in first to get user details");
+        return resourceVersions.userTag(userUuid);
+    }
+
+    /**
+     * This Method is used to get the profile of a User.
+     * The profile snapshots are served from the in-process profile cache, only a cache miss goes to the DB
      *
      * @param userUuid      user id to get details of specific user.
      * @param authorization holds the Bearer access token for authenticating
@@ -198,18 +286,19 @@ public class UserBusinessService {
      *                                      If the user has signed out
      * @throws UserNotFoundException        If the user with uuid whose profile is to be retrieved does not exist in the database
      */
-    public User getUser(final String userUuid, final String authorization) throws AuthorizationFailedException, UserNotFoundException {
-        UserAuthEntity userAuthEntity = validateUserAuthentication(authorization,
-                "User is signed out.Sign in first to get user details");
-        User user = userDao.getUserByUUID(userUuid);
+    @Transactional(readOnly = true)
+    public UserProfile getUser(final String userUuid, final String authorization) throws AuthorizationFailedException, UserNotFoundException {
+        validateUserAuthentication(authorization, "User is signed out.Sign in first to get user details");
+        final UUID uuid = UuidUtil.parse(userUuid);
+        final UserProfile userProfile = uuid == null ? null : userProfileCache.get(uuid, () -> userDao.getUserProfileByUUID(uuid));
         /**
          * If the user with uuid whose profile is to be retrieved does not exist
          * in the database, throw 'UserNotFoundException'
          */
-        if (user == null) {
+        if (userProfile == null) {
             throw new UserNotFoundException("USR-001", "User with entered uuid does not exist");
         }
-        return user;
+        return userProfile;
     }
 
 }
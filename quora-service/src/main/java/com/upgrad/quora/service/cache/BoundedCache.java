@@ -0,0 +1,144 @@
+package com.upgrad.quora.service.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Size bounded read-through cache evicting the least recently used entry once full
+ * Every invalidation bumps a generation counter, a value loaded while an invalidation happened is returned
+ * to its caller but not cached, so a load racing with a write can never leave a stale entry behind
+ * An entry expires the max ttl after it was loaded. The invalidations only reach the cache of the instance doing
+ * the write, the max ttl bounds how long a write done on another instance of the application can go unnoticed here
+ * Hits, misses and evictions are published as quora.cache.* meters tagged with the cache name
+ *
+ * @param <K> The type of the keys
+ * @param <V> The type of the cached values, expected to be immutable
+ */
+public class BoundedCache<K, V> {
+
+    private final boolean enabled;
+
+    private final long maxTtlSeconds;
+
+    private final Map<K, CachedValue<V>> entries;
+
+    private long generation;
+
+    private final Counter hitCounter;
+
+    private final Counter missCounter;
+
+    private final Counter evictionCounter;
+
+    public BoundedCache(final String name, final boolean enabled, final int maxSize, final long maxTtlSeconds,
+                        final MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxTtlSeconds = maxTtlSeconds;
+        this.hitCounter = Counter.builder("quora.cache.hits").tag("cache", name)
+                .description("Lookups answered by the cache").register(meterRegistry);
+        this.missCounter = Counter.builder("quora.cache.misses").tag("cache", name)
+                .description("Lookups loaded from the database").register(meterRegistry);
+        this.evictionCounter = Counter.builder("quora.cache.evictions").tag("cache", name)
+                .description("Entries evicted to stay within the maximum size").register(meterRegistry);
+        this.entries = new LinkedHashMap<K, CachedValue<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<K, CachedValue<V>> eldest) {
+                if (size() > maxSize) {
+                    evictionCounter.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        Gauge.builder("quora.cache.size", this, BoundedCache::size).tag("cache", name)
+                .description("Entries held by the cache").register(meterRegistry);
+    }
+
+    /**
+     * This method returns the cached value of the key, loading and caching it on a miss
+     * An expired entry is dropped and loaded again like a miss
+     * The loader runs outside of the cache lock, concurrent misses on the same key may both load
+     *
+     * @param key    The key to look up
+     * @param loader Loads the value from the database on a miss
+     * @return The cached or loaded value
+     */
+    public V get(final K key, final Supplier<V> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        final long loadGeneration;
+        synchronized (this) {
+            final CachedValue<V> cached = entries.get(key);
+            if (cached != null) {
+                if (!cached.isExpired(Instant.now())) {
+                    hitCounter.increment();
+                    return cached.value;
+                }
+                entries.remove(key);
+            }
+            loadGeneration = generation;
+        }
+        missCounter.increment();
+        final V loaded = loader.get();
+        synchronized (this) {
+            if (loaded != null && loadGeneration == generation) {
+                entries.put(key, new CachedValue<>(loaded, Instant.now().plusSeconds(maxTtlSeconds)));
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * This method drops the entry of the key
+     *
+     * @param key The key whose entry is to be dropped
+     */
+    public synchronized void invalidate(final K key) {
+        generation++;
+        entries.remove(key);
+    }
+
+    /**
+     * This method drops the entries whose key matches the predicate
+     *
+     * @param predicate Selects the keys to drop
+     */
+    public synchronized void invalidateIf(final Predicate<K> predicate) {
+        generation++;
+        entries.keySet().removeIf(predicate);
+    }
+
+    /**
+     * This method drops all the entries
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    private synchronized int size() {
+        return entries.size();
+    }
+
+    private static final class CachedValue<V> {
+        private final V value;
+        private final Instant expiresAt;
+
+        private CachedValue(final V value, final Instant expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(final Instant now) {
+            return !expiresAt.isAfter(now);
+        }
+    }
+}
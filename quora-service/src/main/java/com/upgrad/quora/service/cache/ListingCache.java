@@ -0,0 +1,120 @@
+package com.upgrad.quora.service.cache;
+
+import com.upgrad.quora.service.common.Page;
+import com.upgrad.quora.service.datasource.ReplicaConsistency;
+import com.upgrad.quora.service.dto.AnswerSummary;
+import com.upgrad.quora.service.dto.QuestionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+
+/**
+ * In-process caches of the question and answer listings, read far more often than they change
+ * Holds the first page of the answers per question id, the questions per user id and the first page of the question feed per page size
+ * The write paths invalidate the entries they affect right away and once more after their transaction has committed,
+ * so that a listing loaded in between from the not yet committed state does not outlive the commit, and once more when
+ * the read replicas have caught up with the commit. The entries expire after the max ttl, which bounds how long a write
+ * done on another instance of the application keeps being served stale here
+ */
+@Component
+public class ListingCache {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ReplicaConsistency replicaConsistency;
+
+    @Value("${quora.cache.listings.enabled:true}")
+    private boolean enabled;
+
+    @Value("${quora.cache.listings.answers-max-size:10000}")
+    private int answersMaxSize;
+
+    @Value("${quora.cache.listings.questions-max-size:10000}")
+    private int questionsMaxSize;
+
+    @Value("${quora.cache.listings.feed-max-size:16}")
+    private int feedMaxSize;
+
+    @Value("${quora.cache.listings.max-ttl-seconds:60}")
+    private long maxTtlSeconds;
+
+    private BoundedCache<Integer, Page<AnswerSummary>> answersByQuestion;
+
+    private BoundedCache<Integer, List<QuestionSummary>> questionsByUser;
+
+    private BoundedCache<Integer, Page<QuestionSummary>> questionFeed;
+
+    @PostConstruct
+    public void init() {
+        answersByQuestion = new BoundedCache<>("answersByQuestion", enabled, answersMaxSize, maxTtlSeconds, meterRegistry);
+        questionsByUser = new BoundedCache<>("questionsByUser", enabled, questionsMaxSize, maxTtlSeconds, meterRegistry);
+        questionFeed = new BoundedCache<>("questionFeed", enabled, feedMaxSize, maxTtlSeconds, meterRegistry);
+    }
+
+    /**
+     * @return The first page of the answer summaries in the default order and page size, keyed by the Id attribute of their question
+     */
+    public BoundedCache<Integer, Page<AnswerSummary>> answersByQuestion() {
+        return answersByQuestion;
+    }
+
+    /**
+     * @return The question summaries keyed by the Id attribute of the user who posted them
+     */
+    public BoundedCache<Integer, List<QuestionSummary>> questionsByUser() {
+        return questionsByUser;
+    }
+
+    /**
+     * @return The first page of the question feed keyed by the page size
+     */
+    public BoundedCache<Integer, Page<QuestionSummary>> questionFeed() {
+        return questionFeed;
+    }
+
+    /**
+     * This method invalidates the listings showing a question posted, edited or deleted by the user
+     *
+     * @param userId The Id attribute of the user who posted the question
+     */
+    public void invalidateQuestionsOf(final Integer userId) {
+        runNowAndAfterCommit(() -> {
+            questionsByUser.invalidate(userId);
+            questionFeed.invalidateAll();
+        });
+    }
+
+    /**
+     * This method invalidates the answer listing of a question whose answers were posted, edited or deleted
+     *
+     * @param questionId The Id attribute of the question
+     */
+    public void invalidateAnswersTo(final Integer questionId) {
+        runNowAndAfterCommit(() -> answersByQuestion.invalidate(questionId));
+    }
+
+    /**
+     * This method invalidates the listings showing the questions and answers of a deleted user
+     * The answers of the user may belong to any question, all the answer listings are dropped
+     *
+     * @param userId The Id attribute of the deleted user
+     */
+    public void invalidateUser(final Integer userId) {
+        runNowAndAfterCommit(() -> {
+            questionsByUser.invalidate(userId);
+            questionFeed.invalidateAll();
+            answersByQuestion.invalidateAll();
+        });
+    }
+
+    private void runNowAndAfterCommit(final Runnable invalidation) {
+        invalidation.run();
+        replicaConsistency.afterCommit(invalidation);
+    }
+}
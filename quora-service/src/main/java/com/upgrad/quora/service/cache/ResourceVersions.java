@@ -0,0 +1,118 @@
+package com.upgrad.quora.service.cache;
+
+import com.upgrad.quora.service.datasource.ReplicaConsistency;
+import com.upgrad.quora.service.util.UuidUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-process version counters of the resources polled by the clients, the source of their entity tags
+ * The question feed has a single counter, the answer listings and the user profiles share striped counters keyed
+ * by the hash of the normalized question uuid or user uuid, so the memory used is fixed and a write at worst changes
+ * the tag of a few unrelated resources as well. The tags carry the start time of this instance, tags handed out
+ * before a restart never match again
+ * The counters only see the writes done on this instance. The tags also carry the current max ttl period of the cache
+ * of the resource, so a write done on another instance goes unnoticed for no longer than in the listing and profile
+ * caches: the tags of the question feed and the answer listings roll over with quora.cache.listings.max-ttl-seconds
+ * and the ones of the user profiles with quora.cache.profiles.max-ttl-seconds
+ * The counters are bumped once the write has committed, and once more when the read replicas have caught up with it,
+ * the version is to be read before the resource is loaded
+ */
+@Component
+public class ResourceVersions {
+
+    private static final int STRIPES = 4096;
+
+    @Autowired
+    private ReplicaConsistency replicaConsistency;
+
+    @Value("${quora.cache.listings.max-ttl-seconds:60}")
+    private long listingsMaxTtlSeconds;
+
+    @Value("${quora.cache.profiles.max-ttl-seconds:300}")
+    private long profilesMaxTtlSeconds;
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+
+    private final AtomicLong questions = new AtomicLong();
+
+    private final AtomicLong allAnswers = new AtomicLong();
+
+    private final AtomicLongArray answers = new AtomicLongArray(STRIPES);
+
+    private final AtomicLongArray users = new AtomicLongArray(STRIPES);
+
+    /**
+     * @return The tag of the current version of the question feed
+     */
+    public String questionsTag() {
+        return tag("q", listingsMaxTtlSeconds, questions.get());
+    }
+
+    /**
+     * @param questionUuid The uuid of the question
+     * @return The tag of the current version of the answer listing of the question
+     */
+    public String answersTag(final String questionUuid) {
+        return tag("a", listingsMaxTtlSeconds, allAnswers.get() + "." + answers.get(stripe(questionUuid)));
+    }
+
+    /**
+     * @param userUuid The uuid of the user
+     * @return The tag of the current version of the user profile
+     */
+    public String userTag(final String userUuid) {
+        return tag("u", profilesMaxTtlSeconds, users.get(stripe(userUuid)));
+    }
+
+    /**
+     * This method bumps the version of the question feed once the current transaction has committed
+     */
+    public void questionsChanged() {
+        replicaConsistency.afterCommit(questions::incrementAndGet);
+    }
+
+    /**
+     * This method bumps the version of the answer listing of the question once the current transaction has committed
+     *
+     * @param questionUuid The uuid of the question
+     */
+    public void answersChanged(final String questionUuid) {
+        final int stripe = stripe(questionUuid);
+        replicaConsistency.afterCommit(() -> answers.incrementAndGet(stripe));
+    }
+
+    /**
+     * This method bumps the versions of the user profile, the question feed and all the answer listings
+     * once the current transaction has committed, the questions and answers of the user go along with the user
+     *
+     * @param userUuid The uuid of the user
+     */
+    public void userDeleted(final String userUuid) {
+        final int stripe = stripe(userUuid);
+        replicaConsistency.afterCommit(() -> {
+            users.incrementAndGet(stripe);
+            questions.incrementAndGet();
+            allAnswers.incrementAndGet();
+        });
+    }
+
+    private String tag(final String resource, final long maxTtlSeconds, final Object version) {
+        final long period = System.currentTimeMillis() / TimeUnit.SECONDS.toMillis(Math.max(1, maxTtlSeconds));
+        return resource + "-" + epoch + "-" + Long.toString(period, Character.MAX_RADIX) + "-" + version;
+    }
+
+    // Differently cased or formatted texts of the same uuid share the stripe
+    private static int stripe(final String uuid) {
+        final UUID parsed = UuidUtil.parse(uuid);
+        final Object key = parsed != null ? parsed : uuid.toLowerCase(Locale.ROOT);
+        return (key.hashCode() & Integer.MAX_VALUE) % STRIPES;
+    }
+}
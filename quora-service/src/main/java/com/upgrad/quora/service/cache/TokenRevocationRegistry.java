@@ -0,0 +1,64 @@
+package com.upgrad.quora.service.cache;
+
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory set of revoked access tokens and users, used by the stateless token mode
+ * Tokens are kept by their 32 byte digest, the same form in which they are stored in user_auth
+ * An entry is only kept till the token (or any token of the user) would have expired anyway,
+ * so the set holds at most the sign-outs of one token lifetime
+ */
+@Component
+public class TokenRevocationRegistry {
+
+    private final Map<ByteBuffer, Instant> revokedTokens = new ConcurrentHashMap<>();
+
+    private final Map<String, Instant> revokedUsers = new ConcurrentHashMap<>();
+
+    /**
+     * Revokes a single access token
+     *
+     * @param accessTokenDigest The digest of the access token
+     * @param expiresAt         The expiry of the access token, after which the entry is dropped
+     */
+    public void revokeToken(final byte[] accessTokenDigest, final Instant expiresAt) {
+        if (expiresAt.isAfter(Instant.now())) {
+            revokedTokens.put(ByteBuffer.wrap(accessTokenDigest.clone()), expiresAt);
+        }
+    }
+
+    /**
+     * Revokes all the tokens of the user issued till now
+     *
+     * @param userUuid The uuid of the user
+     * @param until    The instant by which every token issued to the user till now has expired
+     */
+    public void revokeUser(final String userUuid, final Instant until) {
+        revokedUsers.put(userUuid, until);
+    }
+
+    /**
+     * Checks if the access token or the user it is issued to has been revoked
+     *
+     * @param accessTokenDigest The digest of the access token
+     * @param userUuid          The uuid of the user the token is issued to
+     * @return true if the token must not be accepted anymore, false otherwise
+     */
+    public boolean isRevoked(final byte[] accessTokenDigest, final String userUuid) {
+        return revokedTokens.containsKey(ByteBuffer.wrap(accessTokenDigest)) || revokedUsers.containsKey(userUuid);
+    }
+
+    /**
+     * Drops the entries of the tokens which have expired by now
+     */
+    public void purgeExpired() {
+        final Instant now = Instant.now();
+        revokedTokens.values().removeIf(expiresAt -> !expiresAt.isAfter(now));
+        revokedUsers.values().removeIf(until -> !until.isAfter(now));
+    }
+}
@@ -0,0 +1,123 @@
+package com.upgrad.quora.service.cache;
+
+import com.upgrad.quora.service.entity.UserAuthEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded in-process cache of active user sessions keyed by the access token
+ * Avoids the user_auth lookup on every authenticated request. An entry lives until the earlier of the
+ * token expiry and the configured max ttl, the max ttl bounds how long a sign-out done on another
+ * instance of the application can go unnoticed here
+ */
+@Component
+public class UserAuthCache {
+
+    @Value("${quora.auth.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${quora.auth.cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${quora.auth.cache.max-ttl-seconds:300}")
+    private long maxTtlSeconds;
+
+    private final Map<String, CachedSession> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Retrieves the cached session for the access token, expired entries are dropped on read
+     *
+     * @param accessToken The access token without the Bearer prefix
+     * @return The cached UserAuthEntity, null if not cached or expired
+     */
+    public UserAuthEntity get(final String accessToken) {
+        if (!enabled) {
+            return null;
+        }
+        final CachedSession cachedSession = sessions.get(accessToken);
+        if (cachedSession == null) {
+            return null;
+        }
+        if (cachedSession.isExpired(Instant.now())) {
+            sessions.remove(accessToken, cachedSession);
+            return null;
+        }
+        return cachedSession.userAuthEntity;
+    }
+
+    /**
+     * Caches an active session, sessions already logged out or past their expiry are never cached
+     *
+     * @param accessToken    The access token without the Bearer prefix
+     * @param userAuthEntity The session matched with the access token
+     */
+    public void put(final String accessToken, final UserAuthEntity userAuthEntity) {
+        if (!enabled || userAuthEntity == null || userAuthEntity.getLogoutAt() != null
+                || userAuthEntity.getExpiresAt() == null) {
+            return;
+        }
+        final Instant now = Instant.now();
+        Instant expiresAt = userAuthEntity.getExpiresAt().toInstant();
+        final Instant maxExpiry = now.plusSeconds(maxTtlSeconds);
+        if (expiresAt.isAfter(maxExpiry)) {
+            expiresAt = maxExpiry;
+        }
+        if (!expiresAt.isAfter(now)) {
+            return;
+        }
+        if (sessions.size() >= maxSize) {
+            evict(now);
+        }
+        sessions.put(accessToken, new CachedSession(userAuthEntity, expiresAt));
+    }
+
+    /**
+     * Removes the session of the access token, used when the user signs out
+     *
+     * @param accessToken The access token without the Bearer prefix
+     */
+    public void invalidate(final String accessToken) {
+        sessions.remove(accessToken);
+    }
+
+    /**
+     * Removes all the sessions belonging to a user, used when the user is deleted
+     *
+     * @param userUuid The uuid of the user whose sessions are to be removed
+     */
+    public void invalidateUser(final String userUuid) {
+        sessions.values().removeIf(cachedSession -> userUuid.equals(cachedSession.userAuthEntity.getUser().getUuid()));
+    }
+
+    /**
+     * Makes room for a new entry, first by dropping the expired entries and if the cache is
+     * still full by dropping arbitrary entries till it is back under the limit
+     */
+    private void evict(final Instant now) {
+        sessions.values().removeIf(cachedSession -> cachedSession.isExpired(now));
+        final Iterator<String> iterator = sessions.keySet().iterator();
+        while (sessions.size() >= maxSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private static final class CachedSession {
+        private final UserAuthEntity userAuthEntity;
+        private final Instant expiresAt;
+
+        private CachedSession(final UserAuthEntity userAuthEntity, final Instant expiresAt) {
+            this.userAuthEntity = userAuthEntity;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(final Instant now) {
+            return !expiresAt.isAfter(now);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.upgrad.quora.service.cache;
+
+import com.upgrad.quora.service.dto.UserProfile;
+import com.upgrad.quora.service.datasource.ReplicaConsistency;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * In-process cache of the user profile snapshots keyed by the user uuid, profiles being viewed far more often than they change
+ * The snapshots carry neither the password nor the salt. A write to a profile, or the deletion of the user, invalidates
+ * its entry right away and once more after the transaction has committed, so that a snapshot loaded in between from
+ * the not yet committed state does not outlive the commit, and once more when the read replicas have caught up with the commit
+ * The invalidations only reach the instance doing the write, the max ttl bounds how long a profile updated or a user
+ * deleted on another instance of the application keeps being served here
+ */
+@Component
+public class UserProfileCache {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ReplicaConsistency replicaConsistency;
+
+    @Value("${quora.cache.profiles.enabled:true}")
+    private boolean enabled;
+
+    @Value("${quora.cache.profiles.max-size:10000}")
+    private int maxSize;
+
+    @Value("${quora.cache.profiles.max-ttl-seconds:300}")
+    private long maxTtlSeconds;
+
+    private BoundedCache<UUID, UserProfile> profiles;
+
+    @PostConstruct
+    public void init() {
+        profiles = new BoundedCache<>("userProfiles", enabled, maxSize, maxTtlSeconds, meterRegistry);
+    }
+
+    /**
+     * This method returns the cached profile of the user, loading and caching it on a miss
+     * A user not found is not cached, the loader runs again on the next lookup
+     *
+     * @param userUuid The uuid of the user
+     * @param loader   Loads the profile from the database on a miss, returning null if the user does not exist
+     * @return The profile of the user, null if the user does not exist
+     */
+    public UserProfile get(final UUID userUuid, final Supplier<UserProfile> loader) {
+        return profiles.get(userUuid, loader);
+    }
+
+    /**
+     * This method invalidates the profile of a user whose profile was updated or who was deleted
+     *
+     * @param userUuid The uuid of the user
+     */
+    public void invalidate(final UUID userUuid) {
+        final Runnable invalidation = () -> profiles.invalidate(userUuid);
+        invalidation.run();
+        replicaConsistency.afterCommit(invalidation);
+    }
+}
@@ -0,0 +1,34 @@
+package com.upgrad.quora.service.common;
+
+import java.util.List;
+
+/**
+ * A page of a keyset paginated listing along with the cursor to the page after it
+ *
+ * @param <T> The type of the rows in the page
+ */
+public final class Page<T> {
+
+    private final List<T> content;
+    private final PageCursor nextCursor;
+
+    public Page(final List<T> content, final PageCursor nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    /**
+     * @return The cursor to pass for the page after this one, null if this is the last page
+     */
+    public PageCursor getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,68 @@
+package com.upgrad.quora.service.common;
+
+import com.upgrad.quora.service.exception.InvalidPaginationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Base64;
+
+/**
+ * Position of the last row of a page in a listing ordered by date and id, either both descending or both ascending
+ * The position is handed to the client as an opaque url safe string, the next page starts strictly after it
+ * in the order the listing was requested with
+ */
+public final class PageCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final ZonedDateTime date;
+    private final Integer id;
+
+    public PageCursor(final ZonedDateTime date, final Integer id) {
+        this.date = date;
+        this.id = id;
+    }
+
+    public ZonedDateTime getDate() {
+        return date;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    /**
+     * This method encodes the cursor into the opaque string sent to the client
+     *
+     * @return The url safe base64 encoding of the date and id
+     */
+    public String encode() {
+        final String position = date.toInstant().toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * This method decodes the cursor sent back by the client
+     *
+     * @param cursor The opaque string returned earlier by encode
+     * @return The decoded cursor
+     * @throws InvalidPaginationException If the cursor was not produced by this application
+     */
+    public static PageCursor decode(final String cursor) throws InvalidPaginationException {
+        try {
+            final String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            final int separatorIndex = position.indexOf(SEPARATOR);
+            if (separatorIndex < 0) {
+                throw new InvalidPaginationException("PAG-002", "Entered page cursor is not valid");
+            }
+            final Instant instant = Instant.parse(position.substring(0, separatorIndex));
+            final Integer id = Integer.valueOf(position.substring(separatorIndex + 1));
+            return new PageCursor(ZonedDateTime.ofInstant(instant, ZoneId.systemDefault()), id);
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new InvalidPaginationException("PAG-002", "Entered page cursor is not valid");
+        }
+    }
+}
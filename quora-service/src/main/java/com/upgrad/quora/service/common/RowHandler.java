@@ -0,0 +1,20 @@
+package com.upgrad.quora.service.common;
+
+import java.io.IOException;
+
+/**
+ * Callback receiving the rows of a streamed listing one at a time, as they are read from the database cursor
+ *
+ * @param <T> The type of the rows
+ */
+@FunctionalInterface
+public interface RowHandler<T> {
+
+    /**
+     * This method is called for every row of the listing, in the order of the listing
+     *
+     * @param row The row read from the cursor
+     * @throws IOException If the row could not be written out, the streaming is stopped
+     */
+    void handle(T row) throws IOException;
+}
@@ -0,0 +1,39 @@
+package com.upgrad.quora.service.common;
+
+import com.upgrad.quora.service.exception.InvalidPaginationException;
+
+/**
+ * Order of a listing sorted by date and id
+ */
+public enum SortOrder {
+
+    /**
+     * The latest rows first
+     */
+    NEWEST,
+
+    /**
+     * The oldest rows first
+     */
+    OLDEST;
+
+    /**
+     * This method parses the sort order passed by the client, ignoring the case
+     *
+     * @param sort         The sort order passed by the client, null or empty for the default
+     * @param defaultOrder The sort order used when none is passed
+     * @return The sort order
+     * @throws InvalidPaginationException If the sort order is neither newest nor oldest
+     */
+    public static SortOrder parse(final String sort, final SortOrder defaultOrder) throws InvalidPaginationException {
+        if (sort == null || sort.isEmpty()) {
+            return defaultOrder;
+        }
+        for (SortOrder order : values()) {
+            if (order.name().equalsIgnoreCase(sort)) {
+                return order;
+            }
+        }
+        throw new InvalidPaginationException("PAG-004", "Sort order should be newest or oldest");
+    }
+}
@@ -0,0 +1,31 @@
+package com.upgrad.quora.service.common;
+
+/**
+ * Number of rows of a listing, either counted exactly or estimated from the statistics of the database
+ */
+public final class TotalCount {
+
+    private final long value;
+    private final boolean exact;
+
+    private TotalCount(final long value, final boolean exact) {
+        this.value = value;
+        this.exact = exact;
+    }
+
+    public static TotalCount exact(final long value) {
+        return new TotalCount(value, true);
+    }
+
+    public static TotalCount estimated(final long value) {
+        return new TotalCount(value, false);
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    public boolean isExact() {
+        return exact;
+    }
+}
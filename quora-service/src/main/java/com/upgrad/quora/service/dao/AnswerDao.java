@@ -1,16 +1,27 @@
 package com.upgrad.quora.service.dao;
 
+import com.upgrad.quora.service.common.PageCursor;
+import com.upgrad.quora.service.common.SortOrder;
+import com.upgrad.quora.service.dto.AnswerSummary;
+import com.upgrad.quora.service.dto.ModifiedAnswer;
 import com.upgrad.quora.service.entity.Answer;
+import com.upgrad.quora.service.util.UuidUtil;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
-import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
 import java.util.List;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Repository
 public class AnswerDao {
 
+    private static final Pattern PLAN_ROWS = Pattern.compile(" rows=(\\d+)");
+
     @PersistenceContext
     private EntityManager entityManager;
 
@@ -26,47 +37,120 @@ public class AnswerDao {
     }
 
     /**
-     * This method is to get a answer by uuid from db
+     * Sends the pending inserts of the persistence context to the database and detaches the persisted entities
+     * Called between the batches of a bulk creation, so the context does not grow with the number of answers
+     */
+    public void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    /**
+     * Tells whether an answer with the uuid exists, used to tell apart the failures of the conditional statements
+     *
+     * @param answerUUID The uuid of the answer
+     * @return true if the answer exists
+     */
+    public boolean answerExists(String answerUUID) {
+        final UUID uuid = UuidUtil.parse(answerUUID);
+        return uuid != null && entityManager.createNamedQuery("answerCountByUUID", Long.class).setParameter("uuid", uuid).getSingleResult() > 0;
+    }
+
+    /**
+     * Updates the content of the answer in a single statement, provided it is owned by the user
+     * The ownership is checked by the database in the where clause, the answer is neither loaded nor merged
      *
-     * @param answerUUID is the uuid of answer to get from db
-     * @return the answer present in db
+     * @param answerUUID The uuid of the answer to edit
+     * @param userId     The Id attribute of the user editing the answer
+     * @param content    The new content of the answer
+     * @return The answer as updated, null if no answer with the uuid is owned by the user
      */
-    public Answer getAnswerByUUID(String answerUUID) {
-        try {
-            return entityManager.createNamedQuery("answerByUUID", Answer.class).setParameter("uuid", answerUUID).getSingleResult();
-        } catch (NoResultException nre) {
+    public ModifiedAnswer updateOwnAnswerContent(String answerUUID, Integer userId, String content) {
+        final UUID uuid = UuidUtil.parse(answerUUID);
+        if (uuid == null) {
             return null;
         }
+        return getModifiedAnswer(entityManager.createNamedQuery("updateOwnAnswerContent")
+                .setParameter("uuid", uuid).setParameter("userId", userId).setParameter("ans", content));
     }
 
     /**
-     * This method is used to update the answer content to db
+     * Deletes the answer in a single statement, provided it is owned by the user or the user is an admin
      *
-     * @param answer Is the answer that needed to be merged to db
-     * @return answer that is merged in db
+     * @param answerUUID The uuid of the answer to delete
+     * @param userId     The Id attribute of the user deleting the answer
+     * @param isAdmin    true if the user is an admin, who can delete any answer
+     * @return The answer as deleted, null if no answer with the uuid could be deleted by the user
      */
-    public Answer updateAnswerContent(Answer answer) {
-        entityManager.merge(answer);
-        return answer;
+    public ModifiedAnswer deleteAnswer(String answerUUID, Integer userId, boolean isAdmin) {
+        final UUID uuid = UuidUtil.parse(answerUUID);
+        if (uuid == null) {
+            return null;
+        }
+        return getModifiedAnswer(entityManager.createNamedQuery("deleteOwnOrAnyAnswer")
+                .setParameter("uuid", uuid).setParameter("userId", userId).setParameter("isAdmin", isAdmin));
     }
 
     /**
-     * This method is used to delete the answer record from db
+     * Runs a conditional statement returning the row of the answer it modified
      *
-     * @param answer entity to be deleted from db
+     * @param statement The update or delete statement with its parameters set
+     * @return The answer modified, null if the condition matched no answer
      */
-    public void deleteAnswer(Answer answer) {
-        entityManager.remove(answer);
+    private ModifiedAnswer getModifiedAnswer(Query statement) {
+        final List<?> modified = statement.getResultList();
+        return modified.isEmpty() ? null : (ModifiedAnswer) modified.get(0);
     }
 
     /**
-     * Retrieves all the answer records based on the question
+     * Retrieves a page of the answers to the question in the sort order
+     * The page is located through the (question_id, date, id) index covering the uuid and the content, read forwards
+     * for the oldest first and backwards for the newest first, so its cost does not depend on how deep the page is
      *
      * @param questionId The question Id attribute to pull the answers with foreign key value
-     * @return The list of all answers matched with the question Id
+     * @param sortOrder  The order of the answers, by date and id
+     * @param cursor     The position of the last answer of the previous page, null for the first page
+     * @param maxResults The maximum number of answers to retrieve
+     * @return The summaries of the answers to the question following the cursor position
+     */
+    public List<AnswerSummary> getAnswersPage(Integer questionId, SortOrder sortOrder, PageCursor cursor, int maxResults) {
+        final boolean newest = sortOrder == SortOrder.NEWEST;
+        final TypedQuery<AnswerSummary> query;
+        if (cursor == null) {
+            query = entityManager.createNamedQuery(newest ? "answerSummariesNewestFirstPage" : "answerSummariesByQuestionId", AnswerSummary.class);
+        } else {
+            query = entityManager.createNamedQuery(newest ? "answerSummariesNewestAfterCursor" : "answerSummariesOldestAfterCursor", AnswerSummary.class)
+                    .setParameter("date", cursor.getDate()).setParameter("id", cursor.getId());
+        }
+        return query.setParameter("questionId", questionId).setMaxResults(maxResults).getResultList();
+    }
+
+    /**
+     * Counts the answers to the question, stopping at maxCount
+     * At most maxCount entries of the question_id index are read, however many answers the question has
+     *
+     * @param questionId The question Id attribute to count the answers with foreign key value
+     * @param maxCount   The count at which the counting stops
+     * @return The number of answers to the question, maxCount if there are maxCount answers or more
+     */
+    public long countAnswersUpTo(Integer questionId, int maxCount) {
+        return ((Number) entityManager.createNamedQuery("answerCountByQuestionIdUpTo")
+                .setParameter("questionId", questionId).setParameter("maxCount", maxCount).getSingleResult()).longValue();
+    }
+
+    /**
+     * Estimates the number of answers to the question from the row count the query planner expects,
+     * which comes from the statistics gathered by analyze and reads no answer
+     *
+     * @param questionId The question Id attribute to count the answers with foreign key value
+     * @return The estimated number of answers to the question, -1 if the plan carried no row count
      */
-    public List<Answer> getAllAnswersByQuestionId(Integer questionId) {
-        return entityManager.createNamedQuery("answerByQuestionId", Answer.class).setParameter("questionId", questionId).getResultList();
+    public long estimateAnswerCount(Integer questionId) {
+        final List<?> plan = entityManager.createNamedQuery("answerCountPlanByQuestionId")
+                .setParameter("questionId", questionId).getResultList();
+        // The first line of the plan is its top node, e.g. "Index Only Scan using ... (cost=0.42..8.44 rows=1234 width=4)"
+        final Matcher rows = PLAN_ROWS.matcher(plan.isEmpty() ? "" : String.valueOf(plan.get(0)));
+        return rows.find() ? Long.parseLong(rows.group(1)) : -1;
     }
 
 }
@@ -1,12 +1,19 @@
 package com.upgrad.quora.service.dao;
 
+import com.upgrad.quora.service.common.PageCursor;
+import com.upgrad.quora.service.dto.ModifiedQuestion;
+import com.upgrad.quora.service.dto.QuestionSummary;
 import com.upgrad.quora.service.entity.Question;
+import com.upgrad.quora.service.util.UuidUtil;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
 import java.util.List;
+import java.util.UUID;
 
 @Repository
 public class QuestionDao {
@@ -25,15 +32,64 @@ public class QuestionDao {
         return question;
     }
 
+    /**
+     * Sends the pending inserts of the persistence context to the database and detaches the persisted entities
+     * Called between the batches of a bulk creation, so the context does not grow with the number of questions
+     */
+    public void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+
+    /**
+     * Retrieves a page of the questions ordered from the latest to the oldest
+     * The page is located through the (date, id) index, so its cost does not depend on how deep the page is
+     *
+     * @param cursor     The position of the last question of the previous page, null for the first page
+     * @param maxResults The maximum number of questions to retrieve
+     * @return The summaries of the questions posted before the cursor position
+     */
+    public List<QuestionSummary> getQuestionsPage(PageCursor cursor, int maxResults) {
+        final TypedQuery<QuestionSummary> query;
+        if (cursor == null) {
+            query = entityManager.createNamedQuery("questionSummariesFirstPage", QuestionSummary.class);
+        } else {
+            query = entityManager.createNamedQuery("questionSummariesAfterCursor", QuestionSummary.class)
+                    .setParameter("date", cursor.getDate()).setParameter("id", cursor.getId());
+        }
+        return query.setMaxResults(maxResults).getResultList();
+    }
 
     /**
-     * Retrieves all the questions present in the Database question table and returns as a list
+     * Retrieves a chunk of the questions posted after a position, from the oldest to the latest
+     * The chunk is located through the (date, id) index, the in-process search index is loaded chunk by chunk with it
      *
-     * @return The list of questions present in the question table
+     * @param after      The position of the last question of the previous chunk
+     * @param maxResults The maximum number of questions to retrieve
+     * @return The summaries of the questions posted after the position
      */
-    public List<Question> getAllQuestions() {
-        final List<Question> allQuestions = entityManager.createQuery("select q from Question q", Question.class).getResultList();
-        return allQuestions;
+    public List<QuestionSummary> getQuestionsPostedAfter(PageCursor after, int maxResults) {
+        return entityManager.createNamedQuery("questionSummariesPostedAfter", QuestionSummary.class)
+                .setParameter("date", after.getDate()).setParameter("id", after.getId())
+                .setMaxResults(maxResults).getResultList();
+    }
+
+    /**
+     * Searches the questions whose content matches the words of the search text, best match first
+     * The match runs on the GIN indexed content_tsv column, so only the matching questions are read and ranked
+     *
+     * @param searchText The plain text to search for, stemmed and stripped of stop words by the english configuration
+     * @param matchAll   true if the questions have to contain all the words, false if any of them is enough
+     * @param limit      The maximum number of questions to retrieve
+     * @param offset     The number of best matching questions to skip
+     * @return The summaries of the matching questions ordered by their rank
+     */
+    @SuppressWarnings("unchecked")
+    public List<QuestionSummary> searchQuestions(String searchText, boolean matchAll, int limit, int offset) {
+        return entityManager.createNamedQuery(matchAll ? "questionSummariesBySearchText" : "questionSummariesByAnySearchTerm")
+                .setParameter("searchText", searchText).setParameter("limit", limit).setParameter("offset", offset)
+                .getResultList();
     }
 
     /**
@@ -43,36 +99,100 @@ public class QuestionDao {
      */
     public Question getQuestionByUUID(String questionUUID) {
         try {
-            return entityManager.createNamedQuery("questionByUUID", Question.class).setParameter("uuid", questionUUID).getSingleResult();
+            final UUID uuid = UuidUtil.parse(questionUUID);
+            if (uuid == null) {
+                return null;
+            }
+            return entityManager.createNamedQuery("questionByUUID", Question.class).setParameter("uuid", uuid).getSingleResult();
         } catch (NoResultException nre) {
             return null;
         }
     }
 
-    // Edit Question method (JPA merge state)
-    public Question updateQuestion(Question question) {
-        entityManager.merge(question);
-        return question;
+    /**
+     * Retrieves the summary of the question by its uuid, the question entity is neither loaded nor managed
+     *
+     * @param questionUUID The uuid of the question
+     * @return The summary of the question, null if no question has the uuid
+     */
+    public QuestionSummary getQuestionSummaryByUUID(String questionUUID) {
+        final UUID uuid = UuidUtil.parse(questionUUID);
+        if (uuid == null) {
+            return null;
+        }
+        final List<QuestionSummary> questions = entityManager.createNamedQuery("questionSummaryByUUID", QuestionSummary.class)
+                .setParameter("uuid", uuid).getResultList();
+        return questions.isEmpty() ? null : questions.get(0);
+    }
+
+    /**
+     * Tells whether a question with the uuid exists, used to tell apart the failures of the conditional statements
+     *
+     * @param questionUUID The uuid of the question
+     * @return true if the question exists
+     */
+    public boolean questionExists(String questionUUID) {
+        final UUID uuid = UuidUtil.parse(questionUUID);
+        return uuid != null && entityManager.createNamedQuery("questionCountByUUID", Long.class).setParameter("uuid", uuid).getSingleResult() > 0;
+    }
+
+    /**
+     * Updates the content of the question in a single statement, provided it is owned by the user
+     * The ownership is checked by the database in the where clause, the question is neither loaded nor merged
+     *
+     * @param questionUUID The uuid of the question to edit
+     * @param userId       The Id attribute of the user editing the question
+     * @param content      The new content of the question
+     * @return The question as updated, null if no question with the uuid is owned by the user
+     */
+    public ModifiedQuestion updateOwnQuestionContent(String questionUUID, Integer userId, String content) {
+        final UUID uuid = UuidUtil.parse(questionUUID);
+        if (uuid == null) {
+            return null;
+        }
+        return getModifiedQuestion(entityManager.createNamedQuery("updateOwnQuestionContent")
+                .setParameter("uuid", uuid).setParameter("userId", userId).setParameter("content", content));
     }
 
     /**
-     * Retrieves all the questions posted by a user matched with the userId field
+     * Retrieves all the questions posted by a user matched with the userId field, latest first
      * Here the userId is the Id attribute in User Entity
+     * Read by an index only scan of the (user_id, date, id) index covering the uuid and the content
      *
      * @param userId The user id Id attribute of User Entity to pull the questions posted by that user
-     * @return The list of all questions posted by the matched user
+     * @return The summaries of all questions posted by the matched user
+     */
+    public List<QuestionSummary> findQuestionByUserId(Integer userId) {
+        return entityManager.createNamedQuery("questionSummariesByUserId", QuestionSummary.class).setParameter("userId", userId).getResultList();
+    }
+
+    /**
+     * Deletes the question in a single statement, provided it is owned by the user or the user is an admin
+     * The answers to the question are deleted along with it by the foreign key cascade
+     *
+     * @param questionUUID The uuid of the question to delete
+     * @param userId       The Id attribute of the user deleting the question
+     * @param isAdmin      true if the user is an admin, who can delete any question
+     * @return The question as deleted, null if no question with the uuid could be deleted by the user
      */
-    public List<Question> findQuestionByUserId(Integer userId) {
-        return entityManager.createNamedQuery("questionByUserId", Question.class).setParameter("userId", userId).getResultList();
+    public ModifiedQuestion deleteQuestion(String questionUUID, Integer userId, boolean isAdmin) {
+        final UUID uuid = UuidUtil.parse(questionUUID);
+        if (uuid == null) {
+            return null;
+        }
+        return getModifiedQuestion(entityManager.createNamedQuery("deleteOwnOrAnyQuestion")
+                .setParameter("uuid", uuid).setParameter("userId", userId).setParameter("isAdmin", isAdmin));
     }
 
     /**
-     * This method is used to delete a question
+     * Runs a conditional statement returning the row of the question it modified
      *
-     * @param question Is the question that needed to be deleted
+     * @param statement The update or delete statement with its parameters set
+     * @return The question modified, null if the condition matched no question
      */
-    public void deleteQuestion(Question question) {
-        entityManager.remove(question);
+    private ModifiedQuestion getModifiedQuestion(Query statement) {
+        final List<?> modified = statement.getResultList();
+        return modified.isEmpty() ? null : (ModifiedQuestion) modified.get(0);
     }
 
 }
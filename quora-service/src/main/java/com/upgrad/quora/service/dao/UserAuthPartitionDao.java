@@ -0,0 +1,96 @@
+package com.upgrad.quora.service.dao;
+
+import com.upgrad.quora.service.entity.UserAuthEntity;
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains the LOGIN_AT range partitions of the user_auth table
+ * Partitions are named "user_auth_pYYYYMMDD" after the first day they hold, the "user_auth_default"
+ * partition catches the rows outside of every range and is never dropped, its rows are purged by the user_auth reaper
+ * The statements declare user_auth as the table they change, so they leave the second-level cache of the other entities alone
+ */
+@Repository
+public class UserAuthPartitionDao {
+
+    public static final String PARTITION_PREFIX = "user_auth_p";
+
+    private static final DateTimeFormatter PARTITION_SUFFIX_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private static final Pattern UPPER_BOUND_PATTERN = Pattern.compile("TO \\('([^']+)'\\)");
+
+    private static final DateTimeFormatter BOUND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Checks if the user_auth table is range partitioned, the schema from before partitioning is a plain table
+     *
+     * @return true if user_auth is a partitioned table, false otherwise
+     */
+    public boolean isUserAuthPartitioned() {
+        final Number count = (Number) entityManager.createNativeQuery("select count(*) from pg_partitioned_table pt"
+                + " join pg_class c on c.oid = pt.partrelid where c.relname = 'user_auth'").getSingleResult();
+        return count.intValue() > 0;
+    }
+
+    /**
+     * Retrieves the range partitions of user_auth along with the upper bound (exclusive) of each range
+     *
+     * @return The partition names mapped to their upper bound, the default partition is not included
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, LocalDateTime> getUserAuthPartitions() {
+        final List<Object[]> rows = entityManager.createNativeQuery("select c.relname, pg_get_expr(c.relpartbound, c.oid)"
+                + " from pg_inherits i join pg_class c on c.oid = i.inhrelid join pg_class p on p.oid = i.inhparent"
+                + " where p.relname = 'user_auth' and c.relname like '" + PARTITION_PREFIX + "%' order by c.relname").getResultList();
+        final Map<String, LocalDateTime> partitions = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            final Matcher matcher = UPPER_BOUND_PATTERN.matcher((String) row[1]);
+            if (matcher.find()) {
+                partitions.put((String) row[0], LocalDateTime.parse(matcher.group(1).substring(0, 19), BOUND_FORMAT));
+            }
+        }
+        return partitions;
+    }
+
+    /**
+     * Creates the partition holding the sessions logged in from the start date (inclusive) to the end date (exclusive)
+     *
+     * @param from The first day of the partition
+     * @param to   The first day after the partition
+     * @return The name of the partition
+     */
+    public String createUserAuthPartition(final LocalDate from, final LocalDate to) {
+        final String partitionName = PARTITION_PREFIX + from.format(PARTITION_SUFFIX_FORMAT);
+        entityManager.createNativeQuery("create table if not exists " + partitionName + " partition of user_auth"
+                + " for values from ('" + from + "') to ('" + to + "')")
+                .unwrap(NativeQuery.class).addSynchronizedEntityClass(UserAuthEntity.class).executeUpdate();
+        return partitionName;
+    }
+
+    /**
+     * Drops a range partition along with all the sessions in it
+     *
+     * @param partitionName The name of the partition as returned by getUserAuthPartitions
+     */
+    public void dropUserAuthPartition(final String partitionName) {
+        if (!partitionName.matches(PARTITION_PREFIX + "\\d{8}")) {
+            throw new IllegalArgumentException("Not a user_auth range partition: " + partitionName);
+        }
+        entityManager.createNativeQuery("drop table if exists " + partitionName)
+                .unwrap(NativeQuery.class).addSynchronizedEntityClass(UserAuthEntity.class).executeUpdate();
+    }
+}
@@ -1,16 +1,31 @@
 package com.upgrad.quora.service.dao;
 
+import com.upgrad.quora.service.dto.UserProfile;
 import com.upgrad.quora.service.entity.User;
 import com.upgrad.quora.service.entity.UserAuthEntity;
+import com.upgrad.quora.service.entity.UserRevocationEntity;
+import com.upgrad.quora.service.util.TokenDigestUtil;
+import com.upgrad.quora.service.util.UuidUtil;
+import org.hibernate.SessionFactory;
+import org.hibernate.query.NativeQuery;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
 import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
 
 @Repository
 public class UserDao {
 
+    /**
+     * The second-level cache regions of the user lookups by user name, email and uuid
+     */
+    private static final String[] USER_QUERY_CACHE_REGIONS = {"userByUserName", "userByEmail", "userByUUID"};
+
     @PersistenceContext
     private EntityManager entityManager;
 
@@ -25,6 +40,16 @@ public class UserDao {
         return user;
     }
 
+    /**
+     * Updates the User Information in the Database table, like a re-hashed password
+     * An update of the profile columns has to invalidate the profile snapshot of the user in UserProfileCache
+     *
+     * @param user The user data to be updated in DB
+     */
+    public void updateUser(final User user) {
+        entityManager.merge(user);
+    }
+
     /**
      * This method is added to persist the authData in database
      *
@@ -78,17 +103,88 @@ public class UserDao {
      * Retrieves the user auth record matched with the access token passed
      * The access token is the one generated at the time of login
      *
+     * The record is looked up by the fixed width digest of the access token
+     *
      * @param accessToken The Security accessToken generated at the time of Sign in
      * @return The UserAuthEntity record matched with the accessToken
      */
     public UserAuthEntity getUserAuthToken(final String accessToken) {
         try {
-            return entityManager.createNamedQuery("userAuthByAccessToken", UserAuthEntity.class).setParameter("accessToken", accessToken).getSingleResult();
+            return entityManager.createNamedQuery("userAuthByAccessToken", UserAuthEntity.class)
+                    .setParameter("accessTokenDigest", TokenDigestUtil.digest(accessToken)).getSingleResult();
         } catch (NoResultException nre) {
             return null;
         }
     }
     
+    /**
+     * Retrieves the user auth records which are logged out at or after the time passed
+     *
+     * @param since The time from which the logouts are to be retrieved
+     * @return The list of UserAuthEntity records logged out since the time passed
+     */
+    public List<UserAuthEntity> getUserAuthLoggedOutSince(final ZonedDateTime since) {
+        return entityManager.createNamedQuery("userAuthLoggedOutSince", UserAuthEntity.class).setParameter("since", since).getResultList();
+    }
+
+    /**
+     * Records the revocation of all the access tokens of a user, replacing an earlier revocation of the user
+     *
+     * @param userRevocationEntity The revocation to be recorded
+     */
+    public void saveUserRevocation(final UserRevocationEntity userRevocationEntity) {
+        entityManager.merge(userRevocationEntity);
+    }
+
+    /**
+     * Retrieves the user revocations recorded since the time passed
+     *
+     * @param since The earliest revocation time to be retrieved
+     * @return The revocations recorded since then
+     */
+    public List<UserRevocationEntity> getUserRevocationsSince(final ZonedDateTime since) {
+        return entityManager.createNamedQuery("userRevocationsSince", UserRevocationEntity.class).setParameter("since", since).getResultList();
+    }
+
+    /**
+     * Deletes the user revocations which have expired before the cutoff, no token they cover is valid anymore
+     *
+     * @param cutoff The revocations expired before this time are deleted
+     * @return The number of revocations deleted
+     */
+    public int deleteUserRevocationsExpiredBefore(final ZonedDateTime cutoff) {
+        return entityManager.createQuery("delete from UserRevocationEntity ur where ur.expiresAt < :cutoff")
+                .setParameter("cutoff", cutoff).executeUpdate();
+    }
+
+    /**
+     * Deletes a batch of user auth records which have expired or are logged out before the cutoff
+     * Rows locked by other transactions are skipped, they are picked up by a later batch
+     *
+     * @param cutoff    The records expired or logged out before this time are deleted
+     * @param batchSize The maximum number of records to be deleted
+     * @return The number of records deleted
+     */
+    public int deleteUserAuthBatch(final ZonedDateTime cutoff, final int batchSize) {
+        // Declares the table the statement writes to, a native statement would otherwise evict the whole second-level cache
+        return entityManager.createNativeQuery("delete from user_auth where id in (select id from user_auth"
+                + " where expires_at < :cutoff or logout_at < :cutoff limit :batchSize for update skip locked)")
+                .unwrap(NativeQuery.class).addSynchronizedEntityClass(UserAuthEntity.class)
+                .setParameter("cutoff", cutoff).setParameter("batchSize", batchSize).executeUpdate();
+    }
+
+    /**
+     * Retrieves the profile of the user matched with the uuid passed, the user entity is neither loaded nor managed
+     *
+     * @param uuid The uuid of the user
+     * @return The profile of the user, null if no user has the uuid
+     */
+    public UserProfile getUserProfileByUUID(UUID uuid) {
+        final List<UserProfile> profiles = entityManager.createNamedQuery("userProfileByUUID", UserProfile.class)
+                .setParameter("uuid", uuid).getResultList();
+        return profiles.isEmpty() ? null : profiles.get(0);
+    }
+
     /**
      * Retrieves the user detail matched with the userId passed
      * @param userUUID Id of the user
@@ -96,12 +192,31 @@ public class UserDao {
      */
     public User getUserByUUID(String userUUID) {
         try {
-            return entityManager.createNamedQuery("userByUUID", User.class).setParameter("uuid", userUUID).getSingleResult();
+            final UUID uuid = UuidUtil.parse(userUUID);
+            if (uuid == null) {
+                return null;
+            }
+            return entityManager.createNamedQuery("userByUUID", User.class).setParameter("uuid", uuid).getSingleResult();
         } catch (NoResultException nre) {
             return null;
         }
     }
 
+    /**
+     * Evicts the user from the second-level cache along with the cached user lookups, the next read loads them from the
+     * database again. A read of a lagging replica right after a write to the user may have cached its previous state
+     *
+     * @param userId The id of the user written to
+     */
+    public void evictCachedUser(final Integer userId) {
+        final EntityManagerFactory entityManagerFactory = entityManager.getEntityManagerFactory();
+        entityManagerFactory.getCache().evict(User.class, userId);
+        final org.hibernate.Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        for (String region : USER_QUERY_CACHE_REGIONS) {
+            cache.evictQueryRegion(region);
+        }
+    }
+
     /**
      * This method is used to delete a user from db
      *
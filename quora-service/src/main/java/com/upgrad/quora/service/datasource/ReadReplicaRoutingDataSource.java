@@ -0,0 +1,57 @@
+package com.upgrad.quora.service.datasource;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Hands out the connections of the read only transactions from an available replica and all the others from the primary
+ * The routing is decided when the connection is fetched, so this data source is to be wrapped in a
+ * LazyConnectionDataSourceProxy: the transaction manager then gets its connection before the read only flag of the
+ * transaction is set, and the physical connection is only fetched here on the first statement
+ * A read only transaction falls back to the primary when no replica is available or the replica picked fails
+ */
+public class ReadReplicaRoutingDataSource extends AbstractDataSource {
+
+    private final DataSource primary;
+
+    private final ReplicaPool replicaPool;
+
+    public ReadReplicaRoutingDataSource(final DataSource primary, final ReplicaPool replicaPool) {
+        this.primary = primary;
+        this.replicaPool = replicaPool;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        final Replica replica = pickReplica();
+        if (replica != null) {
+            try {
+                return replica.getDataSource().getConnection();
+            } catch (SQLException e) {
+                replicaPool.markUnavailable(replica, e);
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(final String username, final String password) throws SQLException {
+        final Replica replica = pickReplica();
+        if (replica != null) {
+            try {
+                return replica.getDataSource().getConnection(username, password);
+            } catch (SQLException e) {
+                replicaPool.markUnavailable(replica, e);
+            }
+        }
+        return primary.getConnection(username, password);
+    }
+
+    private Replica pickReplica() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? replicaPool.next() : null;
+    }
+}
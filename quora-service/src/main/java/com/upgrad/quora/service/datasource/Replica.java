@@ -0,0 +1,50 @@
+package com.upgrad.quora.service.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * A read replica along with the outcome of its last health check
+ */
+public final class Replica {
+
+    private final String name;
+    private final HikariDataSource dataSource;
+
+    private volatile boolean available;
+    private volatile double lagSeconds;
+
+    public Replica(final String name, final HikariDataSource dataSource) {
+        this.name = name;
+        this.dataSource = dataSource;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public HikariDataSource getDataSource() {
+        return dataSource;
+    }
+
+    /**
+     * @return true if the last health check reached the replica and found it within the maximum lag
+     */
+    public boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * @return The replication lag measured by the last successful health check, in seconds
+     */
+    public double getLagSeconds() {
+        return lagSeconds;
+    }
+
+    void setAvailable(final boolean available) {
+        this.available = available;
+    }
+
+    void setLagSeconds(final double lagSeconds) {
+        this.lagSeconds = lagSeconds;
+    }
+}
@@ -0,0 +1,99 @@
+package com.upgrad.quora.service.datasource;
+
+import com.upgrad.quora.service.util.TransactionUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Compensates the replication lag when the read only transactions are routed to the read replicas
+ * A write committed on the primary reaches a replica up to the maximum lag later, meanwhile a read from the replica
+ * still sees the previous state. The in-memory caches invalidated after the commit are thus invalidated once more
+ * when every available replica has caught up, and a session not found on a replica is looked up on the primary,
+ * as it may have just signed in. Without replicas, the actions run once after commit and the reads go to the primary
+ */
+@Component
+public class ReplicaConsistency {
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${quora.datasource.replicas.enabled:false}")
+    private boolean enabled;
+
+    @Value("${quora.datasource.replicas.max-lag-seconds:5}")
+    private double maxLagSeconds;
+
+    @Value("${quora.datasource.replicas.health-check-interval-ms:5000}")
+    private long healthCheckIntervalMs;
+
+    private TransactionTemplate primaryTransaction;
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void init() {
+        primaryTransaction = new TransactionTemplate(transactionManager);
+        primaryTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        if (enabled) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "replica-lag-invalidation");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * @return true if the current transaction reads from a replica
+     */
+    public boolean isReplicaRead() {
+        return enabled && TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    /**
+     * This method runs the reads in a transaction of their own on the primary, for a row a replica may not have received yet
+     *
+     * @param reads The reads to run on the primary
+     * @param <T>   The type of the result
+     * @return The result of the reads
+     */
+    public <T> T readFromPrimary(final Supplier<T> reads) {
+        return primaryTransaction.execute(status -> reads.get());
+    }
+
+    /**
+     * This method runs an idempotent action, like a cache invalidation, once the current transaction has committed,
+     * and once more when the replicas have caught up with the commit
+     * A replica lagging more than the maximum lag is left out by its next health check, so every replica still in use
+     * has replayed the commit after the maximum lag and a health check interval
+     *
+     * @param action The action to be run after commit
+     */
+    public void afterCommit(final Runnable action) {
+        TransactionUtil.afterCommit(() -> {
+            action.run();
+            if (scheduler != null) {
+                scheduler.schedule(action, (long) (maxLagSeconds * 1000) + healthCheckIntervalMs, TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+}
@@ -0,0 +1,184 @@
+package com.upgrad.quora.service.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The read replicas the read only transactions are spread over, round robin among the available ones
+ * Each replica is health checked periodically: a replica that cannot be reached, is not a streaming standby, or whose
+ * replication lag exceeds the maximum lag, is left out until a later check finds it healthy again. A replica failing to hand out a connection
+ * in between is left out right away. The lag and availability of each replica are published as quora.datasource.replica.* meters
+ */
+public class ReplicaPool implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicaPool.class);
+
+    private static final String PRIMARY_LSN_QUERY = "select pg_current_wal_lsn()::text";
+
+    /**
+     * Given the WAL position of the primary taken just before: whether the instance is a standby, whether its WAL
+     * receiver is streaming from the primary, whether it has replayed the WAL up to that position and the time since
+     * its last replayed transaction. The latter bounds the staleness of a standby which is behind the primary, the
+     * commits it misses are all more recent. Reading pg_stat_wal_receiver needs the pg_read_all_stats role
+     */
+    private static final String REPLICA_STATUS_QUERY = "select pg_is_in_recovery(),"
+            + " exists (select 1 from pg_stat_wal_receiver where status = 'streaming'),"
+            + " coalesce(pg_last_wal_replay_lsn() >= ?::pg_lsn, false),"
+            + " extract(epoch from now() - pg_last_xact_replay_timestamp())";
+
+    private final DataSource primaryDataSource;
+
+    private final List<Replica> replicas;
+
+    private final double maxLagSeconds;
+
+    private final int healthCheckTimeoutSeconds;
+
+    private final AtomicInteger nextIndex = new AtomicInteger();
+
+    public ReplicaPool(final DataSource primaryDataSource, final List<Replica> replicas, final double maxLagSeconds,
+                       final int healthCheckTimeoutSeconds, final MeterRegistry meterRegistry) {
+        this.primaryDataSource = primaryDataSource;
+        this.replicas = Collections.unmodifiableList(new ArrayList<>(replicas));
+        this.maxLagSeconds = maxLagSeconds;
+        this.healthCheckTimeoutSeconds = healthCheckTimeoutSeconds;
+        for (Replica replica : this.replicas) {
+            Gauge.builder("quora.datasource.replica.lag", replica, Replica::getLagSeconds).tag("replica", replica.getName())
+                    .description("Replication lag measured by the last health check, in seconds").register(meterRegistry);
+            Gauge.builder("quora.datasource.replica.available", replica, r -> r.isAvailable() ? 1 : 0).tag("replica", replica.getName())
+                    .description("1 if the replica serves the read only transactions, 0 if it is left out").register(meterRegistry);
+        }
+    }
+
+    /**
+     * This method picks the replica for the next read only transaction
+     *
+     * @return The next available replica, null if none is available
+     */
+    public Replica next() {
+        final int size = replicas.size();
+        final int start = nextIndex.getAndIncrement() & Integer.MAX_VALUE;
+        for (int offset = 0; offset < size; offset++) {
+            final Replica replica = replicas.get((start + offset) % size);
+            if (replica.isAvailable()) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * This method leaves out a replica which failed to hand out a connection, until the next health check finds it healthy
+     *
+     * @param replica The replica which failed
+     * @param cause   The failure
+     */
+    public void markUnavailable(final Replica replica, final SQLException cause) {
+        if (replica.isAvailable()) {
+            LOGGER.warn("Replica {} left out after a connection failure: {}", replica.getName(), cause.getMessage());
+        }
+        replica.setAvailable(false);
+    }
+
+    /**
+     * This method checks the health and measures the replication lag of every replica against the current WAL
+     * position of the primary. Without the primary position the lag can't be told, the replicas are then left out
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${quora.datasource.replicas.health-check-interval-ms:5000}")
+    public void checkHealth() {
+        String primaryLsn;
+        try {
+            primaryLsn = readPrimaryLsn();
+        } catch (SQLException e) {
+            LOGGER.warn("The WAL position of the primary could not be read: {}", e.getMessage());
+            primaryLsn = null;
+        }
+        for (Replica replica : replicas) {
+            boolean available;
+            try {
+                if (primaryLsn == null) {
+                    throw new SQLException("the primary WAL position is unknown");
+                }
+                final double lagSeconds = measureLag(replica, primaryLsn);
+                replica.setLagSeconds(lagSeconds);
+                available = lagSeconds <= maxLagSeconds;
+                if (!available && replica.isAvailable()) {
+                    LOGGER.warn("Replica {} left out, its lag of {}s exceeds {}s", replica.getName(), lagSeconds, maxLagSeconds);
+                }
+            } catch (SQLException e) {
+                available = false;
+                if (replica.isAvailable()) {
+                    LOGGER.warn("Replica {} left out, its health check failed: {}", replica.getName(), e.getMessage());
+                }
+            }
+            if (available && !replica.isAvailable()) {
+                LOGGER.info("Replica {} serves the read only transactions", replica.getName());
+            }
+            replica.setAvailable(available);
+        }
+    }
+
+    private String readPrimaryLsn() throws SQLException {
+        try (Connection connection = primaryDataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(healthCheckTimeoutSeconds);
+            try (ResultSet resultSet = statement.executeQuery(PRIMARY_LSN_QUERY)) {
+                resultSet.next();
+                return resultSet.getString(1);
+            }
+        }
+    }
+
+    /**
+     * Measures the staleness of the replica: zero if it has replayed the WAL the primary had at the start of the check,
+     * else the time since its last replayed transaction, infinite if it has replayed none since it started
+     *
+     * @throws SQLException if the replica can't be reached, is not a standby or doesn't stream from the primary
+     */
+    private double measureLag(final Replica replica, final String primaryLsn) throws SQLException {
+        try (Connection connection = replica.getDataSource().getConnection();
+             PreparedStatement statement = connection.prepareStatement(REPLICA_STATUS_QUERY)) {
+            statement.setQueryTimeout(healthCheckTimeoutSeconds);
+            statement.setString(1, primaryLsn);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                if (!resultSet.getBoolean(1)) {
+                    throw new SQLException("it is not a standby");
+                }
+                if (!resultSet.getBoolean(2)) {
+                    throw new SQLException("its WAL receiver is not streaming");
+                }
+                if (resultSet.getBoolean(3)) {
+                    return 0;
+                }
+                final double secondsSinceLastReplay = resultSet.getDouble(4);
+                return resultSet.wasNull() ? Double.POSITIVE_INFINITY : Math.max(secondsSinceLastReplay, 0);
+            }
+        }
+    }
+
+    /**
+     * This method closes the connection pools of the replicas
+     */
+    @Override
+    public void close() {
+        for (Replica replica : replicas) {
+            replica.getDataSource().close();
+        }
+    }
+}
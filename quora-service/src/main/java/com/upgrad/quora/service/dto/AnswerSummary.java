@@ -0,0 +1,38 @@
+package com.upgrad.quora.service.dto;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Read only projection of an answer carrying the columns the listings need
+ * Built by the constructor expressions of the Answer queries, neither the question nor the user is loaded
+ */
+public final class AnswerSummary {
+
+    private final Integer id;
+    private final String uuid;
+    private final String ans;
+    private final ZonedDateTime date;
+
+    public AnswerSummary(final Integer id, final String uuid, final String ans, final ZonedDateTime date) {
+        this.id = id;
+        this.uuid = uuid;
+        this.ans = ans;
+        this.date = date;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getUuid() {
+        return uuid;
+    }
+
+    public String getAns() {
+        return ans;
+    }
+
+    public ZonedDateTime getDate() {
+        return date;
+    }
+}
@@ -0,0 +1,48 @@
+package com.upgrad.quora.service.dto;
+
+/**
+ * Outcome of one item of a bulk creation, at the position the item had in the request
+ * Carries the uuid of the created entity, or the code and message of the validation failure of the item
+ */
+public final class BulkItemResult {
+
+    private final int index;
+    private final String uuid;
+    private final String code;
+    private final String message;
+
+    private BulkItemResult(final int index, final String uuid, final String code, final String message) {
+        this.index = index;
+        this.uuid = uuid;
+        this.code = code;
+        this.message = message;
+    }
+
+    public static BulkItemResult created(final int index, final String uuid) {
+        return new BulkItemResult(index, uuid, null, null);
+    }
+
+    public static BulkItemResult failed(final int index, final String code, final String message) {
+        return new BulkItemResult(index, null, code, message);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getUuid() {
+        return uuid;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public boolean isCreated() {
+        return uuid != null;
+    }
+}
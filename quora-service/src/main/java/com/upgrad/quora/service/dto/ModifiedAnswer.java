@@ -0,0 +1,36 @@
+package com.upgrad.quora.service.dto;
+
+/**
+ * Row of an answer as returned by the RETURNING clause of the conditional update and delete statements
+ * Carries the id and uuid of the question answered, so that its answer listing can be invalidated without loading it
+ */
+public final class ModifiedAnswer {
+
+    private final Integer id;
+    private final String uuid;
+    private final Integer questionId;
+    private final String questionUuid;
+
+    public ModifiedAnswer(final Integer id, final String uuid, final Integer questionId, final String questionUuid) {
+        this.id = id;
+        this.uuid = uuid;
+        this.questionId = questionId;
+        this.questionUuid = questionUuid;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getUuid() {
+        return uuid;
+    }
+
+    public Integer getQuestionId() {
+        return questionId;
+    }
+
+    public String getQuestionUuid() {
+        return questionUuid;
+    }
+}
@@ -0,0 +1,48 @@
+package com.upgrad.quora.service.dto;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Row of a question as returned by the RETURNING clause of the conditional update and delete statements
+ * Carries the owner along with the summary columns, so that the caches can be invalidated without loading the question
+ */
+public final class ModifiedQuestion {
+
+    private final Integer id;
+    private final String uuid;
+    private final String content;
+    private final ZonedDateTime date;
+    private final Integer userId;
+
+    public ModifiedQuestion(final Integer id, final String uuid, final String content, final ZonedDateTime date, final Integer userId) {
+        this.id = id;
+        this.uuid = uuid;
+        this.content = content;
+        this.date = date;
+        this.userId = userId;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getUuid() {
+        return uuid;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public ZonedDateTime getDate() {
+        return date;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public QuestionSummary toSummary() {
+        return new QuestionSummary(id, uuid, content, date);
+    }
+}
@@ -0,0 +1,38 @@
+package com.upgrad.quora.service.dto;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Read only projection of a question carrying the columns the listings need
+ * Built by the constructor expressions of the Question queries, the posting user is not loaded
+ */
+public final class QuestionSummary {
+
+    private final Integer id;
+    private final String uuid;
+    private final String content;
+    private final ZonedDateTime date;
+
+    public QuestionSummary(final Integer id, final String uuid, final String content, final ZonedDateTime date) {
+        this.id = id;
+        this.uuid = uuid;
+        this.content = content;
+        this.date = date;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getUuid() {
+        return uuid;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public ZonedDateTime getDate() {
+        return date;
+    }
+}
@@ -0,0 +1,25 @@
+package com.upgrad.quora.service.dto;
+
+import com.upgrad.quora.service.common.Page;
+
+/**
+ * A question along with the first page of its answers, read together to render the page of the question
+ */
+public final class QuestionWithAnswers {
+
+    private final QuestionSummary question;
+    private final Page<AnswerSummary> answers;
+
+    public QuestionWithAnswers(final QuestionSummary question, final Page<AnswerSummary> answers) {
+        this.question = question;
+        this.answers = answers;
+    }
+
+    public QuestionSummary getQuestion() {
+        return question;
+    }
+
+    public Page<AnswerSummary> getAnswers() {
+        return answers;
+    }
+}
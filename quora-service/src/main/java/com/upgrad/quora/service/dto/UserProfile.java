@@ -0,0 +1,68 @@
+package com.upgrad.quora.service.dto;
+
+/**
+ * Read only snapshot of the public profile of a user
+ * Built by the constructor expression of the userProfileByUUID query, the password and the salt are never read,
+ * so the snapshot can be held in memory for as long as the profile does not change
+ */
+public final class UserProfile {
+
+    private final String uuid;
+    private final String firstName;
+    private final String lastName;
+    private final String userName;
+    private final String email;
+    private final String country;
+    private final String aboutMe;
+    private final String dob;
+    private final String contactNumber;
+
+    public UserProfile(final String uuid, final String firstName, final String lastName, final String userName, final String email,
+                       final String country, final String aboutMe, final String dob, final String contactNumber) {
+        this.uuid = uuid;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.userName = userName;
+        this.email = email;
+        this.country = country;
+        this.aboutMe = aboutMe;
+        this.dob = dob;
+        this.contactNumber = contactNumber;
+    }
+
+    public String getUuid() {
+        return uuid;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getCountry() {
+        return country;
+    }
+
+    public String getAboutMe() {
+        return aboutMe;
+    }
+
+    public String getDob() {
+        return dob;
+    }
+
+    public String getContactNumber() {
+        return contactNumber;
+    }
+}
@@ -1,5 +1,6 @@
 package com.upgrad.quora.service.entity;
 
+import com.upgrad.quora.service.dto.ModifiedAnswer;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 
@@ -8,26 +9,50 @@ import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 import java.io.Serializable;
 import java.time.ZonedDateTime;
+import java.util.UUID;
 
 @Entity
 @Table(name = "answer")
 @NamedQueries(
         {
-                @NamedQuery(name = "answerByUUID", query = "select ans from Answer ans where ans.uuid = :uuid"),
-                @NamedQuery(name = "answerByQuestionId", query = "select ans from Answer ans where ans.question.id = :questionId")
+                @NamedQuery(name = "answerCountByUUID", query = "select count(ans) from Answer ans where ans.uuid = :uuid"),
+                @NamedQuery(name = "answerSummariesByQuestionId", query = "select new com.upgrad.quora.service.dto.AnswerSummary(ans.id, str(ans.uuid), ans.ans, ans.date) from Answer ans where ans.question.id = :questionId order by ans.date, ans.id"),
+                @NamedQuery(name = "answerSummariesOldestAfterCursor", query = "select new com.upgrad.quora.service.dto.AnswerSummary(ans.id, str(ans.uuid), ans.ans, ans.date) from Answer ans where ans.question.id = :questionId and ans.date >= :date and (ans.date > :date or ans.id > :id) order by ans.date, ans.id"),
+                @NamedQuery(name = "answerSummariesNewestFirstPage", query = "select new com.upgrad.quora.service.dto.AnswerSummary(ans.id, str(ans.uuid), ans.ans, ans.date) from Answer ans where ans.question.id = :questionId order by ans.date desc, ans.id desc"),
+                @NamedQuery(name = "answerSummariesNewestAfterCursor", query = "select new com.upgrad.quora.service.dto.AnswerSummary(ans.id, str(ans.uuid), ans.ans, ans.date) from Answer ans where ans.question.id = :questionId and ans.date <= :date and (ans.date < :date or ans.id < :id) order by ans.date desc, ans.id desc")
         }
 )
+@NamedNativeQueries(
+        {
+                @NamedNativeQuery(name = "updateOwnAnswerContent", resultSetMapping = "modifiedAnswer",
+                        query = "update answer a set ans = :ans from question q where q.id = a.question_id " +
+                                "and a.uuid = :uuid and a.user_id = :userId returning a.id, a.uuid, a.question_id, q.uuid as question_uuid"),
+                @NamedNativeQuery(name = "deleteOwnOrAnyAnswer", resultSetMapping = "modifiedAnswer",
+                        query = "delete from answer a using question q where q.id = a.question_id " +
+                                "and a.uuid = :uuid and (a.user_id = :userId or :isAdmin) returning a.id, a.uuid, a.question_id, q.uuid as question_uuid"),
+                @NamedNativeQuery(name = "answerCountByQuestionIdUpTo",
+                        query = "select count(*) from (select 1 from answer where question_id = :questionId limit :maxCount) a"),
+                @NamedNativeQuery(name = "answerCountPlanByQuestionId",
+                        query = "explain select 1 from answer where question_id = :questionId")
+        }
+)
+@SqlResultSetMapping(name = "modifiedAnswer", classes = @ConstructorResult(targetClass = ModifiedAnswer.class, columns = {
+        @ColumnResult(name = "id", type = Integer.class),
+        @ColumnResult(name = "uuid", type = String.class),
+        @ColumnResult(name = "question_id", type = Integer.class),
+        @ColumnResult(name = "question_uuid", type = String.class)
+}))
 public class Answer implements Serializable {
 
     @Id
     @Column(name = "id")
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "answer_id_generator")
+    @SequenceGenerator(name = "answer_id_generator", sequenceName = "answer_id_seq", allocationSize = 50)
     private Integer id;
 
     @Column(name = "uuid")
     @NotNull
-    @Size(max = 200)
-    private String uuid;
+    private UUID uuid;
 
     @Column(name = "ans")
     @NotNull
@@ -38,13 +63,13 @@ public class Answer implements Serializable {
     @NotNull
     private ZonedDateTime date;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @OnDelete(action = OnDeleteAction.CASCADE)
     @JoinColumn(name = "user_id")
     @NotNull
     private User user;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @OnDelete(action = OnDeleteAction.CASCADE)
     @JoinColumn(name = "question_id")
     @NotNull
@@ -59,11 +84,11 @@ public class Answer implements Serializable {
     }
 
     public String getUuid() {
-        return uuid;
+        return uuid == null ? null : uuid.toString();
     }
 
     public void setUuid(String uuid) {
-        this.uuid = uuid;
+        this.uuid = uuid == null ? null : UUID.fromString(uuid);
     }
 
     public String getAns() {
@@ -1,5 +1,7 @@
 package com.upgrad.quora.service.entity;
 
+import com.upgrad.quora.service.dto.ModifiedQuestion;
+import com.upgrad.quora.service.dto.QuestionSummary;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 
@@ -8,26 +10,66 @@ import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 import java.io.Serializable;
 import java.time.ZonedDateTime;
+import java.util.UUID;
 
 @Entity
 @Table(name = "question")
 @NamedQueries(
         {
-                @NamedQuery(name = "questionByUserId", query = "select q from Question q where q.user.id = :userId"),
-                @NamedQuery(name = "questionByUUID", query = "select q from Question q where q.uuid = :uuid")
+                @NamedQuery(name = "questionSummariesByUserId", query = "select new com.upgrad.quora.service.dto.QuestionSummary(q.id, str(q.uuid), q.content, q.date) from Question q where q.user.id = :userId order by q.date desc, q.id desc"),
+                @NamedQuery(name = "questionByUUID", query = "select q from Question q where q.uuid = :uuid"),
+                @NamedQuery(name = "questionSummaryByUUID", query = "select new com.upgrad.quora.service.dto.QuestionSummary(q.id, str(q.uuid), q.content, q.date) from Question q where q.uuid = :uuid"),
+                @NamedQuery(name = "questionCountByUUID", query = "select count(q) from Question q where q.uuid = :uuid"),
+                @NamedQuery(name = "questionSummariesFirstPage", query = "select new com.upgrad.quora.service.dto.QuestionSummary(q.id, str(q.uuid), q.content, q.date) from Question q order by q.date desc, q.id desc"),
+                @NamedQuery(name = "questionSummariesAfterCursor", query = "select new com.upgrad.quora.service.dto.QuestionSummary(q.id, str(q.uuid), q.content, q.date) from Question q where q.date <= :date and (q.date < :date or q.id < :id) order by q.date desc, q.id desc"),
+                @NamedQuery(name = "questionSummariesPostedAfter", query = "select new com.upgrad.quora.service.dto.QuestionSummary(q.id, str(q.uuid), q.content, q.date) from Question q where q.date >= :date and (q.date > :date or q.id > :id) order by q.date, q.id")
+        }
+)
+@NamedNativeQueries(
+        {
+                @NamedNativeQuery(name = "questionSummariesBySearchText", resultSetMapping = "questionSummary",
+                        query = "select q.id, q.uuid, q.content, q.date from question q, plainto_tsquery('english', :searchText) query " +
+                                "where q.content_tsv @@ query order by ts_rank(q.content_tsv, query) desc, q.id desc limit :limit offset :offset"),
+                @NamedNativeQuery(name = "questionSummariesByAnySearchTerm", resultSetMapping = "questionSummary",
+                        query = "select q.id, q.uuid, q.content, q.date from question q, " +
+                                "cast(replace(cast(plainto_tsquery('english', :searchText) as text), '&', '|') as tsquery) query " +
+                                "where q.content_tsv @@ query order by ts_rank(q.content_tsv, query) desc, q.id desc limit :limit offset :offset"),
+                @NamedNativeQuery(name = "updateOwnQuestionContent", resultSetMapping = "modifiedQuestion",
+                        query = "update question set content = :content where uuid = :uuid and user_id = :userId " +
+                                "returning id, uuid, content, date, user_id"),
+                @NamedNativeQuery(name = "deleteOwnOrAnyQuestion", resultSetMapping = "modifiedQuestion",
+                        query = "delete from question where uuid = :uuid and (user_id = :userId or :isAdmin) " +
+                                "returning id, uuid, content, date, user_id")
+        }
+)
+@SqlResultSetMappings(
+        {
+                @SqlResultSetMapping(name = "questionSummary", classes = @ConstructorResult(targetClass = QuestionSummary.class, columns = {
+                        @ColumnResult(name = "id", type = Integer.class),
+                        @ColumnResult(name = "uuid", type = String.class),
+                        @ColumnResult(name = "content", type = String.class),
+                        @ColumnResult(name = "date", type = ZonedDateTime.class)
+                })),
+                @SqlResultSetMapping(name = "modifiedQuestion", classes = @ConstructorResult(targetClass = ModifiedQuestion.class, columns = {
+                        @ColumnResult(name = "id", type = Integer.class),
+                        @ColumnResult(name = "uuid", type = String.class),
+                        @ColumnResult(name = "content", type = String.class),
+                        @ColumnResult(name = "date", type = ZonedDateTime.class),
+                        @ColumnResult(name = "user_id", type = Integer.class)
+                }))
         }
 )
 public class Question implements Serializable {
 
     @Id
     @Column(name = "id")
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "question_id_generator")
+    @SequenceGenerator(name = "question_id_generator", sequenceName = "question_id_seq", allocationSize = 50)
     private Integer id;
 
     @Column(name = "uuid")
     @NotNull
-    @Size(max = 200)
-    private String uuid;
+    private UUID uuid;
 
     @Column(name = "content")
     @NotNull
@@ -38,7 +80,7 @@ public class Question implements Serializable {
     @NotNull
     private ZonedDateTime date;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @OnDelete(action = OnDeleteAction.CASCADE)
     @JoinColumn(name = "user_id")
     @NotNull
@@ -53,11 +95,11 @@ public class Question implements Serializable {
     }
 
     public String getUuid() {
-        return uuid;
+        return uuid == null ? null : uuid.toString();
     }
 
     public void setUuid(String uuid) {
-        this.uuid = uuid;
+        this.uuid = uuid == null ? null : UUID.fromString(uuid);
     }
 
     public String getContent() {
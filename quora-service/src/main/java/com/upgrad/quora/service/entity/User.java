@@ -1,30 +1,45 @@
 package com.upgrad.quora.service.entity;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.QueryHints;
+
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 import java.io.Serializable;
+import java.util.UUID;
 
 @Entity
 @Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user")
 @NamedQueries(
         {
-                @NamedQuery(name = "userByUserName", query = "select u from User u where u.userName = :userName"),
-                @NamedQuery(name = "userByEmail", query = "select u from User u where u.email =:email"),
-                @NamedQuery(name = "userByUUID", query = "select u from User u where u.uuid = :uuid")
+                @NamedQuery(name = "userByUserName", query = "select u from User u where u.userName = :userName", hints = {
+                        @QueryHint(name = QueryHints.CACHEABLE, value = "true"),
+                        @QueryHint(name = QueryHints.CACHE_REGION, value = "userByUserName")}),
+                @NamedQuery(name = "userByEmail", query = "select u from User u where u.email =:email", hints = {
+                        @QueryHint(name = QueryHints.CACHEABLE, value = "true"),
+                        @QueryHint(name = QueryHints.CACHE_REGION, value = "userByEmail")}),
+                @NamedQuery(name = "userByUUID", query = "select u from User u where u.uuid = :uuid", hints = {
+                        @QueryHint(name = QueryHints.CACHEABLE, value = "true"),
+                        @QueryHint(name = QueryHints.CACHE_REGION, value = "userByUUID")}),
+                @NamedQuery(name = "userProfileByUUID", query = "select new com.upgrad.quora.service.dto.UserProfile(str(u.uuid), u.firstName, u.lastName, " +
+                        "u.userName, u.email, u.country, u.aboutMe, u.dob, u.contactNumber) from User u where u.uuid = :uuid")
         }
 )
 public class User implements Serializable {
 
     @Id
     @Column(name = "id")
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_id_generator")
+    @SequenceGenerator(name = "users_id_generator", sequenceName = "users_id_seq", allocationSize = 50)
     private Integer id;
 
     @Column(name = "uuid")
     @NotNull
-    @Size(max = 200)
-    private String uuid;
+    private UUID uuid;
 
     @Column(name = "firstname")
     @NotNull
@@ -85,11 +100,11 @@ public class User implements Serializable {
     }
 
     public String getUuid() {
-        return uuid;
+        return uuid == null ? null : uuid.toString();
     }
 
     public void setUuid(String uuid) {
-        this.uuid = uuid;
+        this.uuid = uuid == null ? null : UUID.fromString(uuid);
     }
 
     public String getFirstName() {
@@ -1,5 +1,6 @@
 package com.upgrad.quora.service.entity;
 
+import com.upgrad.quora.service.util.TokenDigestUtil;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 
@@ -8,24 +9,26 @@ import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 import java.io.Serializable;
 import java.time.ZonedDateTime;
+import java.util.UUID;
 
 @Entity
 @Table(name = "user_auth")
 @NamedQueries({
-        @NamedQuery(name = "userAuthByAccessToken", query = "select ut from UserAuthEntity ut where ut.accessToken = :accessToken ")
+        @NamedQuery(name = "userAuthByAccessToken", query = "select ut from UserAuthEntity ut where ut.accessTokenDigest = :accessTokenDigest "),
+        @NamedQuery(name = "userAuthLoggedOutSince", query = "select ut from UserAuthEntity ut where ut.logoutAt >= :since")
 })
 public class UserAuthEntity implements Serializable {
 
 
     @Id
     @Column(name = "ID")
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_auth_id_generator")
+    @SequenceGenerator(name = "user_auth_id_generator", sequenceName = "user_auth_id_seq", allocationSize = 50)
     private Integer id;
 
     @Column(name = "uuid")
     @NotNull
-    @Size(max = 200)
-    private String uuid;
+    private UUID uuid;
 
     @ManyToOne
     @OnDelete(action = OnDeleteAction.CASCADE)
@@ -33,11 +36,18 @@ public class UserAuthEntity implements Serializable {
     @NotNull
     private User user;
 
-    @Column(name = "ACCESS_TOKEN")
-    @NotNull
-    @Size(max = 500)
+    /**
+     * The access token is handed out to the user at sign in and never stored,
+     * the sessions are stored and looked up by the SHA-256 digest of the token
+     */
+    @Transient
     private String accessToken;
 
+    @Column(name = "ACCESS_TOKEN_DIGEST")
+    @NotNull
+    @Size(min = 32, max = 32)
+    private byte[] accessTokenDigest;
+
     @Column(name = "LOGIN_AT")
     @NotNull
     private ZonedDateTime loginAt;
@@ -58,11 +68,11 @@ public class UserAuthEntity implements Serializable {
     }
 
     public String getUuid() {
-        return uuid;
+        return uuid == null ? null : uuid.toString();
     }
 
     public void setUuid(String uuid) {
-        this.uuid = uuid;
+        this.uuid = uuid == null ? null : UUID.fromString(uuid);
     }
 
     public User getUser() {
@@ -79,6 +89,15 @@ public class UserAuthEntity implements Serializable {
 
     public void setAccessToken(String accessToken) {
         this.accessToken = accessToken;
+        this.accessTokenDigest = TokenDigestUtil.digest(accessToken);
+    }
+
+    public byte[] getAccessTokenDigest() {
+        return accessTokenDigest;
+    }
+
+    public void setAccessTokenDigest(byte[] accessTokenDigest) {
+        this.accessTokenDigest = accessTokenDigest;
     }
 
     public ZonedDateTime getLoginAt() {
@@ -0,0 +1,55 @@
+package com.upgrad.quora.service.entity;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+/**
+ * Revocation of all the access tokens issued to a user, recorded when the user is deleted so that the
+ * instances running in the stateless token mode pick it up by polling
+ */
+@Entity
+@Table(name = "user_revocation")
+@NamedQueries({
+        @NamedQuery(name = "userRevocationsSince", query = "select ur from UserRevocationEntity ur where ur.revokedAt >= :since")
+})
+public class UserRevocationEntity implements Serializable {
+
+    @Id
+    @Column(name = "USER_UUID")
+    private UUID userUuid;
+
+    @Column(name = "REVOKED_AT")
+    @NotNull
+    private ZonedDateTime revokedAt;
+
+    @Column(name = "EXPIRES_AT")
+    @NotNull
+    private ZonedDateTime expiresAt;
+
+    public String getUserUuid() {
+        return userUuid == null ? null : userUuid.toString();
+    }
+
+    public void setUserUuid(String userUuid) {
+        this.userUuid = userUuid == null ? null : UUID.fromString(userUuid);
+    }
+
+    public ZonedDateTime getRevokedAt() {
+        return revokedAt;
+    }
+
+    public void setRevokedAt(ZonedDateTime revokedAt) {
+        this.revokedAt = revokedAt;
+    }
+
+    public ZonedDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(ZonedDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
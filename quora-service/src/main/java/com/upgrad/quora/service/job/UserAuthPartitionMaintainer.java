@@ -0,0 +1,93 @@
+package com.upgrad.quora.service.job;
+
+import com.upgrad.quora.service.dao.UserAuthPartitionDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Background job maintaining the LOGIN_AT range partitions of user_auth
+ * Creates the partitions for the coming periods ahead of time and drops the partitions past the retention. Dropping
+ * a partition removes all the sessions of a period at once without leaving dead rows behind, unlike row deletes
+ * Partitions are created ahead of time so that new sessions never land in the default partition, a range can't be
+ * created anymore once the default partition holds rows of that range
+ */
+@Component
+@ConditionalOnProperty(prefix = "quora.auth.partitions", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class UserAuthPartitionMaintainer {
+
+    public enum Granularity {
+        DAILY, WEEKLY
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UserAuthPartitionMaintainer.class);
+
+    @Autowired
+    private UserAuthPartitionDao userAuthPartitionDao;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${quora.auth.partitions.granularity:WEEKLY}")
+    private Granularity granularity;
+
+    @Value("${quora.auth.partitions.periods-ahead:4}")
+    private int periodsAhead;
+
+    @Value("${quora.auth.partitions.retention-days:14}")
+    private long retentionDays;
+
+    /**
+     * This method creates the missing partitions from the current period on and drops the partitions
+     * whose whole range is older than the retention
+     */
+    @Scheduled(initialDelayString = "${quora.auth.partitions.initial-delay-ms:0}", fixedDelayString = "${quora.auth.partitions.interval-ms:21600000}")
+    public void maintain() {
+        if (!transactionTemplate.execute(status -> userAuthPartitionDao.isUserAuthPartitioned())) {
+            LOGGER.warn("user_auth is not a partitioned table, skipping the partition maintenance");
+            return;
+        }
+        LocalDate periodStart = getPeriodStart(LocalDate.now());
+        for (int period = 0; period <= periodsAhead; period++) {
+            final LocalDate from = periodStart;
+            final LocalDate to = getNextPeriodStart(from);
+            try {
+                transactionTemplate.execute(status -> userAuthPartitionDao.createUserAuthPartition(from, to));
+            } catch (RuntimeException e) {
+                // Happens when the default partition already holds sessions of that range
+                LOGGER.warn("Could not create the user_auth partition from {} to {}", from, to, e);
+            }
+            periodStart = to;
+        }
+
+        final LocalDateTime retentionCutoff = LocalDate.now().minusDays(retentionDays).atStartOfDay();
+        final Map<String, LocalDateTime> partitions = transactionTemplate.execute(status -> userAuthPartitionDao.getUserAuthPartitions());
+        for (Map.Entry<String, LocalDateTime> partition : partitions.entrySet()) {
+            if (!partition.getValue().isAfter(retentionCutoff)) {
+                transactionTemplate.execute(status -> {
+                    userAuthPartitionDao.dropUserAuthPartition(partition.getKey());
+                    return null;
+                });
+                LOGGER.info("Dropped the user_auth partition {} holding the sessions logged in before {}", partition.getKey(), partition.getValue());
+            }
+        }
+    }
+
+    private LocalDate getPeriodStart(final LocalDate date) {
+        return granularity == Granularity.WEEKLY ? date.with(DayOfWeek.MONDAY) : date;
+    }
+
+    private LocalDate getNextPeriodStart(final LocalDate periodStart) {
+        return granularity == Granularity.WEEKLY ? periodStart.plusWeeks(1) : periodStart.plusDays(1);
+    }
+}
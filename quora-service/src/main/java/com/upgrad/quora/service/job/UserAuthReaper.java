@@ -0,0 +1,109 @@
+package com.upgrad.quora.service.job;
+
+import com.upgrad.quora.service.dao.UserDao;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background job purging the user_auth records which have expired or are logged out for longer than the retention
+ * The records are deleted in bounded batches, each batch in its own short transaction, so that the job never holds
+ * locks for long and never competes with the sign in/sign out requests for the same rows
+ * The user revocations of the stateless token mode are purged as well once every token they cover has expired
+ * Disabled with "quora.auth.reaper.enabled: false"
+ */
+@Component
+@ConditionalOnProperty(prefix = "quora.auth.reaper", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class UserAuthReaper {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UserAuthReaper.class);
+
+    @Autowired
+    private UserDao userDao;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${quora.auth.reaper.retention-hours:168}")
+    private long retentionHours;
+
+    @Value("${quora.auth.reaper.batch-size:10000}")
+    private int batchSize;
+
+    @Value("${quora.auth.reaper.max-rows-per-run:1000000}")
+    private long maxRowsPerRun;
+
+    @Value("${quora.auth.reaper.batch-pause-ms:100}")
+    private long batchPauseMillis;
+
+    private Counter purgedCounter;
+
+    private Timer runTimer;
+
+    @PostConstruct
+    public void init() {
+        purgedCounter = Counter.builder("quora.auth.reaper.purged")
+                .description("user_auth records purged by the reaper").register(meterRegistry);
+        runTimer = Timer.builder("quora.auth.reaper.run")
+                .description("Time spent per reaper run").register(meterRegistry);
+    }
+
+    /**
+     * This method purges the user_auth records expired or logged out before the retention, batch by batch
+     * till there is nothing left to purge or the per run limit is reached
+     */
+    @Scheduled(initialDelayString = "${quora.auth.reaper.initial-delay-ms:60000}", fixedDelayString = "${quora.auth.reaper.interval-ms:600000}")
+    public void purge() {
+        final long start = System.nanoTime();
+        final ZonedDateTime cutoff = ZonedDateTime.now().minusHours(retentionHours);
+        long purged = 0;
+        int batches = 0;
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(status -> userDao.deleteUserAuthBatch(cutoff, batchSize));
+            purged += deleted;
+            batches++;
+            if (deleted == batchSize && !pause()) {
+                break;
+            }
+        } while (deleted == batchSize && purged < maxRowsPerRun);
+        final ZonedDateTime now = ZonedDateTime.now();
+        final int purgedRevocations = transactionTemplate.execute(status -> userDao.deleteUserRevocationsExpiredBefore(now));
+
+        final long elapsedNanos = System.nanoTime() - start;
+        purgedCounter.increment(purged);
+        runTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        LOGGER.info("Purged {} user_auth records expired or logged out before {} in {} batches and {} expired user revocations, took {} ms",
+                purged, cutoff, batches, purgedRevocations, TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+    }
+
+    /**
+     * Pauses between the batches to leave room for the regular traffic
+     *
+     * @return false if the job got interrupted, true otherwise
+     */
+    private boolean pause() {
+        try {
+            Thread.sleep(batchPauseMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
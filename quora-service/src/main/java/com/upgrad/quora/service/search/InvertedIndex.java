@@ -0,0 +1,182 @@
+package com.upgrad.quora.service.search;
+
+import com.upgrad.quora.service.dto.QuestionSummary;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Term to postings map over the question content along with the indexed question summaries
+ * Matches are ranked by the sum of the tf-idf weights of the search terms they contain
+ * Not thread safe, guarded by the lock of the QuestionSearchIndex
+ */
+final class InvertedIndex {
+
+    private static final Comparator<ScoredQuestion> BY_SCORE = Comparator.comparingDouble((ScoredQuestion scored) -> scored.score)
+            .thenComparingInt(scored -> scored.id);
+
+    private final Map<String, PostingList> postings = new HashMap<>();
+
+    private final Map<Integer, QuestionSummary> questions = new HashMap<>();
+
+    int questionCount() {
+        return questions.size();
+    }
+
+    int termCount() {
+        return postings.size();
+    }
+
+    /**
+     * This method adds the question to the index, replacing its previous content if already indexed
+     * The postings are left as they are when the content is unchanged, as for the questions read again by a catch up
+     *
+     * @param question The question summary to index
+     */
+    void add(final QuestionSummary question) {
+        final QuestionSummary previous = questions.get(question.getId());
+        if (previous != null && previous.getContent().equals(question.getContent())) {
+            questions.put(question.getId(), question);
+            return;
+        }
+        remove(question.getId());
+        questions.put(question.getId(), question);
+        for (Map.Entry<String, Integer> term : SearchTokenizer.termFrequencies(question.getContent()).entrySet()) {
+            postings.computeIfAbsent(term.getKey(), key -> new PostingList()).add(question.getId(), term.getValue());
+        }
+    }
+
+    /**
+     * This method removes the question from the index, if indexed
+     *
+     * @param questionId The Id attribute of the question
+     */
+    void remove(final Integer questionId) {
+        final QuestionSummary previous = questions.remove(questionId);
+        if (previous == null) {
+            return;
+        }
+        for (String term : SearchTokenizer.termFrequencies(previous.getContent()).keySet()) {
+            final PostingList postingList = postings.get(term);
+            if (postingList != null) {
+                postingList.remove(questionId);
+                if (postingList.size() == 0) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    /**
+     * This method merges the buffered out of order postings of every term, called once the index is built
+     */
+    void compact() {
+        for (PostingList postingList : postings.values()) {
+            postingList.compact();
+        }
+    }
+
+    /**
+     * This method searches the questions matching the terms of the search text, best match first
+     *
+     * @param searchText The text to search for
+     * @param matchAll   true if the questions have to contain all the terms, false if any of them is enough
+     * @param limit      The maximum number of questions to return
+     * @param offset     The number of best matching questions to skip
+     * @return The summaries of the matching questions ordered by their score
+     */
+    List<QuestionSummary> search(final String searchText, final boolean matchAll, final int limit, final int offset) {
+        final List<PostingList> termPostings = new ArrayList<>();
+        for (String term : SearchTokenizer.termFrequencies(searchText).keySet()) {
+            final PostingList postingList = postings.get(term);
+            if (postingList != null) {
+                termPostings.add(postingList);
+            } else if (matchAll) {
+                return Collections.emptyList();
+            }
+        }
+        if (termPostings.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final int k = offset + limit;
+        final PriorityQueue<ScoredQuestion> topK = new PriorityQueue<>(BY_SCORE);
+        if (matchAll) {
+            intersect(termPostings, topK, k);
+        } else {
+            union(termPostings, topK, k);
+        }
+        final List<QuestionSummary> matches = new ArrayList<>(topK.size());
+        while (!topK.isEmpty()) {
+            matches.add(questions.get(topK.poll().id));
+        }
+        Collections.reverse(matches);
+        return offset >= matches.size() ? Collections.emptyList() : matches.subList(offset, matches.size());
+    }
+
+    private void intersect(final List<PostingList> termPostings, final PriorityQueue<ScoredQuestion> topK, final int k) {
+        // Leading with the shortest list keeps the number of candidates to check on the longer lists low
+        termPostings.sort(Comparator.comparingInt(PostingList::size));
+        final List<PostingList.Cursor> cursors = new ArrayList<>(termPostings.size());
+        for (PostingList postingList : termPostings) {
+            cursors.add(postingList.cursor());
+        }
+        final PostingList.Cursor lead = cursors.get(0);
+        candidates:
+        while (lead.next()) {
+            final int id = lead.id();
+            double score = tfIdf(lead.termFrequency(), termPostings.get(0).size());
+            for (int i = 1; i < cursors.size(); i++) {
+                final PostingList.Cursor cursor = cursors.get(i);
+                if (!cursor.advance(id)) {
+                    return;
+                }
+                if (cursor.id() != id) {
+                    continue candidates;
+                }
+                score += tfIdf(cursor.termFrequency(), termPostings.get(i).size());
+            }
+            offer(topK, k, new ScoredQuestion(id, score));
+        }
+    }
+
+    private void union(final List<PostingList> termPostings, final PriorityQueue<ScoredQuestion> topK, final int k) {
+        final Map<Integer, Double> scores = new HashMap<>();
+        for (PostingList postingList : termPostings) {
+            final PostingList.Cursor cursor = postingList.cursor();
+            while (cursor.next()) {
+                scores.merge(cursor.id(), tfIdf(cursor.termFrequency(), postingList.size()), Double::sum);
+            }
+        }
+        for (Map.Entry<Integer, Double> score : scores.entrySet()) {
+            offer(topK, k, new ScoredQuestion(score.getKey(), score.getValue()));
+        }
+    }
+
+    private double tfIdf(final int termFrequency, final int documentFrequency) {
+        return termFrequency * Math.log(1 + (double) questions.size() / documentFrequency);
+    }
+
+    private static void offer(final PriorityQueue<ScoredQuestion> topK, final int k, final ScoredQuestion scored) {
+        if (topK.size() < k) {
+            topK.add(scored);
+        } else if (BY_SCORE.compare(scored, topK.peek()) > 0) {
+            topK.poll();
+            topK.add(scored);
+        }
+    }
+
+    private static final class ScoredQuestion {
+        private final int id;
+        private final double score;
+
+        private ScoredQuestion(final int id, final double score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+}
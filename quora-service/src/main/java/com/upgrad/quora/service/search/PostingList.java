@@ -0,0 +1,241 @@
+package com.upgrad.quora.service.search;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Compressed list of the questions containing a term, in ascending question id order
+ * Every posting is stored as the variable length encoded gap from the previous question id followed by the
+ * variable length encoded number of occurrences of the term, so a posting mostly fits in two bytes
+ * Postings added below the largest encoded id and removed postings are buffered in a small tail which the cursors
+ * merge on read, the tail is merged into the encoded postings once it outgrows a fraction of the list, so that an
+ * out of order edit doesn't cost a rewrite of the whole list
+ * Not thread safe, guarded by the lock of the QuestionSearchIndex
+ */
+final class PostingList {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private static final int MIN_TAIL_SIZE = 32;
+
+    private byte[] data = new byte[INITIAL_CAPACITY];
+    private int length;
+    private int lastId;
+    private int size;
+
+    // Postings added below lastId, keyed by question id
+    private TreeMap<Integer, Integer> addedTail;
+
+    // Encoded postings removed since the last merge
+    private Set<Integer> removedTail;
+
+    /**
+     * @return The number of questions in the list
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * This method adds the posting of a question not in the list, appended in place when the question id is the
+     * largest encoded so far and buffered in the tail otherwise
+     *
+     * @param id            The question id
+     * @param termFrequency The number of occurrences of the term in the question
+     */
+    void add(final int id, final int termFrequency) {
+        if (length == 0 || id > lastId) {
+            append(id, termFrequency);
+        } else {
+            if (addedTail == null) {
+                addedTail = new TreeMap<>();
+            }
+            addedTail.put(id, termFrequency);
+        }
+        size++;
+        mergeIfTailOutgrown();
+    }
+
+    /**
+     * This method removes the posting of a question in the list
+     *
+     * @param id The question id
+     */
+    void remove(final int id) {
+        if (addedTail != null && addedTail.remove(id) != null) {
+            size--;
+            return;
+        }
+        if (removedTail == null) {
+            removedTail = new HashSet<>();
+        }
+        if (removedTail.add(id)) {
+            size--;
+            mergeIfTailOutgrown();
+        }
+    }
+
+    /**
+     * This method merges the tail into the encoded postings, called once the index is built
+     */
+    void compact() {
+        if (tailSize() > 0) {
+            merge();
+        }
+    }
+
+    /**
+     * @return A cursor over the postings, in ascending question id order
+     */
+    Cursor cursor() {
+        return new Cursor();
+    }
+
+    private int tailSize() {
+        return (addedTail == null ? 0 : addedTail.size()) + (removedTail == null ? 0 : removedTail.size());
+    }
+
+    private void mergeIfTailOutgrown() {
+        if (tailSize() > Math.max(MIN_TAIL_SIZE, size >> 3)) {
+            merge();
+        }
+    }
+
+    private void append(final int id, final int termFrequency) {
+        ensureCapacity(length + 10);
+        writeVarint(id - lastId);
+        writeVarint(termFrequency);
+        lastId = id;
+    }
+
+    private void merge() {
+        final Cursor cursor = cursor();
+        final PostingList merged = new PostingList();
+        while (cursor.next()) {
+            merged.append(cursor.id(), cursor.termFrequency());
+        }
+        data = merged.length == 0 ? new byte[INITIAL_CAPACITY] : Arrays.copyOf(merged.data, merged.length);
+        length = merged.length;
+        lastId = merged.lastId;
+        addedTail = null;
+        removedTail = null;
+    }
+
+    private void ensureCapacity(final int required) {
+        if (required > data.length) {
+            data = Arrays.copyOf(data, Math.max(required, data.length + (data.length >> 1)));
+        }
+    }
+
+    private void writeVarint(int value) {
+        while ((value & ~0x7F) != 0) {
+            data[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[length++] = (byte) value;
+    }
+
+    /**
+     * Forward only cursor decoding the postings one at a time, merging the tail on the fly
+     */
+    final class Cursor {
+
+        private int position;
+        private int encodedId;
+        private int encodedTermFrequency;
+        private boolean hasEncoded;
+
+        private final Iterator<Map.Entry<Integer, Integer>> addedIterator;
+        private Map.Entry<Integer, Integer> added;
+
+        private boolean started;
+        private int id;
+        private int termFrequency;
+
+        private Cursor() {
+            addedIterator = addedTail == null ? null : addedTail.entrySet().iterator();
+            nextEncoded();
+            nextAdded();
+        }
+
+        /**
+         * This method moves to the next posting
+         *
+         * @return false if there are no more postings
+         */
+        boolean next() {
+            started = true;
+            if (!hasEncoded && added == null) {
+                return false;
+            }
+            if (added == null || (hasEncoded && encodedId < added.getKey())) {
+                id = encodedId;
+                termFrequency = encodedTermFrequency;
+                nextEncoded();
+            } else {
+                id = added.getKey();
+                termFrequency = added.getValue();
+                nextAdded();
+            }
+            return true;
+        }
+
+        /**
+         * This method moves to the first posting whose question id is at least the target
+         *
+         * @param target The question id to move to
+         * @return false if there is no such posting
+         */
+        boolean advance(final int target) {
+            if (started && id >= target) {
+                return true;
+            }
+            while (next()) {
+                if (id >= target) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        int id() {
+            return id;
+        }
+
+        int termFrequency() {
+            return termFrequency;
+        }
+
+        private void nextEncoded() {
+            while (position < length) {
+                encodedId += readVarint();
+                encodedTermFrequency = readVarint();
+                if (removedTail == null || !removedTail.contains(encodedId)) {
+                    hasEncoded = true;
+                    return;
+                }
+            }
+            hasEncoded = false;
+        }
+
+        private void nextAdded() {
+            added = addedIterator != null && addedIterator.hasNext() ? addedIterator.next() : null;
+        }
+
+        private int readVarint() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+}
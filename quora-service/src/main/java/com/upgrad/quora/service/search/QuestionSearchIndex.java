@@ -0,0 +1,281 @@
+package com.upgrad.quora.service.search;
+
+import com.upgrad.quora.service.common.PageCursor;
+import com.upgrad.quora.service.dao.QuestionDao;
+import com.upgrad.quora.service.dto.QuestionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-process inverted index over the question content, answering the question searches without a database round trip
+ * Built at startup by reading the question table in short keyset chunks and kept up to date by the question create,
+ * edit and delete paths once their transactions have committed. Those only reach the index of the instance doing the
+ * write, the questions posted on the other instances of the application are thus caught up every refresh interval by
+ * reading the questions posted since the last one read. The question table doesn't record edits nor deletes, those
+ * done on the other instances are picked up by a full rebuild every full rebuild interval
+ * Enabled with "quora.search.backend: memory", the searches go to the database full text search otherwise
+ */
+@Component
+public class QuestionSearchIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(QuestionSearchIndex.class);
+
+    private static final String MEMORY_BACKEND = "memory";
+
+    @Autowired
+    private QuestionDao questionDao;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${quora.search.backend:database}")
+    private String backend;
+
+    @Value("${quora.streaming.fetch-size:500}")
+    private int fetchSize;
+
+    @Value("${quora.streaming.chunk-timeout-seconds:10}")
+    private int chunkTimeoutSeconds;
+
+    @Value("${quora.search.index.full-rebuild-interval-ms:3600000}")
+    private long fullRebuildIntervalMillis;
+
+    @Value("${quora.search.index.refresh-overlap-seconds:60}")
+    private long refreshOverlapSeconds;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private InvertedIndex index = new InvertedIndex();
+
+    private volatile boolean ready;
+
+    // Updates received while the index is being built, replayed on top of the built index
+    private List<Consumer<InvertedIndex>> pendingUpdates;
+
+    // Position of the latest posted question read from the question table
+    private PageCursor lastRead;
+
+    private long lastBuiltAt;
+
+    private TransactionTemplate chunkTransaction;
+
+    private Timer searchTimer;
+
+    @PostConstruct
+    public void init() {
+        if (!isEnabled()) {
+            return;
+        }
+        chunkTransaction = new TransactionTemplate(transactionManager);
+        chunkTransaction.setReadOnly(true);
+        chunkTransaction.setTimeout(chunkTimeoutSeconds);
+        searchTimer = Timer.builder("quora.search.index.latency")
+                .description("Time taken to answer a search from the in-process index").register(meterRegistry);
+        Gauge.builder("quora.search.index.questions", this, searchIndex -> searchIndex.questionCount())
+                .description("Questions held by the in-process search index").register(meterRegistry);
+    }
+
+    /**
+     * @return true if the index is enabled and has been built, searches can be answered from it
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * This method builds the index by reading the question table once the application has started
+     * The updates made meanwhile are queued and replayed on top of the built index, so none of them is lost
+     * The searches keep being answered from the previous index till the new one is swapped in
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void build() {
+        if (!isEnabled()) {
+            return;
+        }
+        final long start = System.nanoTime();
+        startQueueingUpdates();
+        final InvertedIndex built = new InvertedIndex();
+        final PageCursor origin = new PageCursor(ZonedDateTime.ofInstant(Instant.EPOCH, ZoneId.systemDefault()), 0);
+        final PageCursor read = load(origin, built::add);
+        built.compact();
+        lock.writeLock().lock();
+        try {
+            replayQueuedUpdates(built);
+            index = built;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        lastRead = read == null ? origin : read;
+        lastBuiltAt = System.currentTimeMillis();
+        LOGGER.info("Built the question search index of {} questions and {} terms in {} ms", built.questionCount(),
+                built.termCount(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * This method catches the built index up with the questions posted on the other instances of the application
+     * since the latest one read, or rebuilds it once the full rebuild interval has passed
+     * The catch up reads from a little before the latest question read, as a question may commit after the ones
+     * posted right after it
+     */
+    @Scheduled(initialDelayString = "${quora.search.index.refresh-interval-ms:300000}",
+            fixedDelayString = "${quora.search.index.refresh-interval-ms:300000}")
+    public synchronized void refresh() {
+        if (!ready) {
+            return;
+        }
+        if (System.currentTimeMillis() - lastBuiltAt >= fullRebuildIntervalMillis) {
+            build();
+            return;
+        }
+        startQueueingUpdates();
+        final List<QuestionSummary> posted = new ArrayList<>();
+        final PageCursor read = load(new PageCursor(lastRead.getDate().minusSeconds(refreshOverlapSeconds), 0), posted::add);
+        lock.writeLock().lock();
+        try {
+            for (QuestionSummary question : posted) {
+                index.add(question);
+            }
+            replayQueuedUpdates(index);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (read != null) {
+            lastRead = read;
+        }
+        LOGGER.debug("Caught up the question search index with {} questions", posted.size());
+    }
+
+    /**
+     * This method adds the question to the index, replacing its previous content if already indexed
+     *
+     * @param question The question summary to index
+     */
+    public void index(final QuestionSummary question) {
+        update(invertedIndex -> invertedIndex.add(question));
+    }
+
+    /**
+     * This method removes the question from the index
+     *
+     * @param questionId The Id attribute of the question
+     */
+    public void remove(final Integer questionId) {
+        update(invertedIndex -> invertedIndex.remove(questionId));
+    }
+
+    /**
+     * This method searches the questions matching the terms of the search text, best match first
+     *
+     * @param searchText The text to search for
+     * @param matchAll   true if the questions have to contain all the terms, false if any of them is enough
+     * @param limit      The maximum number of questions to return
+     * @param offset     The number of best matching questions to skip
+     * @return The summaries of the matching questions ordered by their score
+     */
+    public List<QuestionSummary> search(final String searchText, final boolean matchAll, final int limit, final int offset) {
+        final long start = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            return index.search(searchText, matchAll, limit, offset);
+        } finally {
+            lock.readLock().unlock();
+            searchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Reads the questions posted after the position chunk by chunk, each chunk in a short read only transaction
+     *
+     * @param from     The position to read from
+     * @param consumer The callback receiving each question summary
+     * @return The position of the last question read, null if none was read
+     */
+    private PageCursor load(final PageCursor from, final Consumer<QuestionSummary> consumer) {
+        PageCursor after = from;
+        PageCursor last = null;
+        List<QuestionSummary> chunk;
+        do {
+            final PageCursor chunkStart = after;
+            chunk = chunkTransaction.execute(status -> questionDao.getQuestionsPostedAfter(chunkStart, fetchSize));
+            for (QuestionSummary question : chunk) {
+                consumer.accept(question);
+            }
+            if (!chunk.isEmpty()) {
+                final QuestionSummary lastQuestion = chunk.get(chunk.size() - 1);
+                last = after = new PageCursor(lastQuestion.getDate(), lastQuestion.getId());
+            }
+        } while (chunk.size() == fetchSize);
+        return last;
+    }
+
+    private void startQueueingUpdates() {
+        lock.writeLock().lock();
+        try {
+            pendingUpdates = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Called with the write lock held
+    private void replayQueuedUpdates(final InvertedIndex invertedIndex) {
+        for (Consumer<InvertedIndex> update : pendingUpdates) {
+            update.accept(invertedIndex);
+        }
+        pendingUpdates = null;
+    }
+
+    private boolean isEnabled() {
+        return MEMORY_BACKEND.equalsIgnoreCase(backend);
+    }
+
+    private int questionCount() {
+        lock.readLock().lock();
+        try {
+            return index.questionCount();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void update(final Consumer<InvertedIndex> update) {
+        if (!isEnabled()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (pendingUpdates != null) {
+                pendingUpdates.add(update);
+            }
+            update.accept(index);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
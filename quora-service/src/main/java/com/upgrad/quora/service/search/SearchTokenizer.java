@@ -0,0 +1,39 @@
+package com.upgrad.quora.service.search;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Splits the question content and the search text into the lower cased terms of the inverted index
+ * Terms are the runs of letters and digits, single characters are left out
+ */
+final class SearchTokenizer {
+
+    private static final Pattern SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final int MIN_TERM_LENGTH = 2;
+
+    private SearchTokenizer() {
+    }
+
+    /**
+     * This method counts the occurrences of every term of the text
+     *
+     * @param text The text to split
+     * @return The number of occurrences keyed by term
+     */
+    static Map<String, Integer> termFrequencies(final String text) {
+        final Map<String, Integer> frequencies = new HashMap<>();
+        if (text == null) {
+            return frequencies;
+        }
+        for (String token : SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (token.length() >= MIN_TERM_LENGTH) {
+                frequencies.merge(token, 1, Integer::sum);
+            }
+        }
+        return frequencies;
+    }
+}
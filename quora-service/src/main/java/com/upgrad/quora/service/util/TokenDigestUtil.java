@@ -0,0 +1,33 @@
+package com.upgrad.quora.service.util;
+
+import com.upgrad.quora.service.common.GenericErrorCode;
+import com.upgrad.quora.service.common.UnexpectedException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Computes the fixed width digest under which the access tokens are stored and looked up
+ */
+public final class TokenDigestUtil {
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private TokenDigestUtil() {
+    }
+
+    /**
+     * This method computes the SHA-256 digest of the access token
+     *
+     * @param accessToken The access token without the Bearer prefix
+     * @return 32 bytes long digest of the access token
+     */
+    public static byte[] digest(final String accessToken) {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM).digest(accessToken.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new UnexpectedException(GenericErrorCode.GEN_001, e);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.upgrad.quora.service.util;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Helpers to hook in-memory side effects (cache invalidation, index updates) onto the outcome of the
+ * current Spring managed transaction
+ */
+public final class TransactionUtil {
+
+    private TransactionUtil() {
+    }
+
+    /**
+     * Runs the action once the current transaction has committed successfully
+     * If there is no active transaction synchronization, the action is run immediately
+     *
+     * @param action The action to be run after commit
+     */
+    public static void afterCommit(final Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
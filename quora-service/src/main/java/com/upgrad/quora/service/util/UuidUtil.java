@@ -0,0 +1,30 @@
+package com.upgrad.quora.service.util;
+
+import java.util.UUID;
+
+/**
+ * Converts the uuids received as text by the endpoints into the values stored in the uuid columns
+ */
+public final class UuidUtil {
+
+    private UuidUtil() {
+    }
+
+    /**
+     * This method parses the text form of a uuid
+     * A text which is not a uuid cannot match any row, so it is turned into null rather than into an error
+     *
+     * @param uuid The uuid as received from the client
+     * @return The uuid, null if the text is not a valid uuid
+     */
+    public static UUID parse(final String uuid) {
+        if (uuid == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(uuid);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
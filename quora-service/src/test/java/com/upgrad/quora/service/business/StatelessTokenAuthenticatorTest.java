@@ -0,0 +1,98 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.cache.TokenRevocationRegistry;
+import com.upgrad.quora.service.dao.UserDao;
+import com.upgrad.quora.service.entity.User;
+import com.upgrad.quora.service.entity.UserAuthEntity;
+import com.upgrad.quora.service.entity.UserRevocationEntity;
+import com.upgrad.quora.service.exception.AuthorizationFailedException;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.ZonedDateTime;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class StatelessTokenAuthenticatorTest {
+
+    private static final String USER_UUID = "00000000-0000-0000-0000-000000001026";
+
+    private UserDao userDao;
+    private User user;
+
+    @Before
+    public void setUp() {
+        userDao = mock(UserDao.class);
+        when(userDao.getUserAuthLoggedOutSince(any())).thenReturn(Collections.<UserAuthEntity>emptyList());
+        when(userDao.getUserRevocationsSince(any())).thenReturn(Collections.<UserRevocationEntity>emptyList());
+
+        user = new User();
+        user.setId(1026);
+        user.setUuid(USER_UUID);
+        user.setRole("nonadmin");
+    }
+
+    //This test case passes when a token signed out two hours before a restart is still rejected by the rebuilt authenticator.
+    @Test
+    public void signedOutTokenIsRejectedAfterRestart() {
+        final ZonedDateTime issuedAt = ZonedDateTime.now().minusHours(3);
+        final String accessToken = newAuthenticator().generateToken(user, issuedAt, issuedAt.plusHours(8));
+
+        final UserAuthEntity signedOut = new UserAuthEntity();
+        signedOut.setAccessToken(accessToken);
+        signedOut.setLoginAt(issuedAt);
+        signedOut.setExpiresAt(issuedAt.plusHours(8));
+        signedOut.setLogoutAt(ZonedDateTime.now().minusHours(2));
+        when(userDao.getUserAuthLoggedOutSince(any())).thenAnswer(invocation -> {
+            final ZonedDateTime since = invocation.getArgument(0);
+            return signedOut.getLogoutAt().isBefore(since) ? Collections.emptyList() : Collections.singletonList(signedOut);
+        });
+
+        assertRejected(newAuthenticator(), accessToken);
+    }
+
+    //This test case passes when the tokens of a user deleted two hours before a restart are still rejected by the rebuilt authenticator.
+    @Test
+    public void revokedUserIsRejectedAfterRestart() {
+        final ZonedDateTime issuedAt = ZonedDateTime.now().minusHours(3);
+        final String accessToken = newAuthenticator().generateToken(user, issuedAt, issuedAt.plusHours(8));
+
+        final UserRevocationEntity revocation = new UserRevocationEntity();
+        revocation.setUserUuid(USER_UUID);
+        revocation.setRevokedAt(ZonedDateTime.now().minusHours(2));
+        revocation.setExpiresAt(ZonedDateTime.now().plusHours(6));
+        when(userDao.getUserRevocationsSince(any())).thenAnswer(invocation -> {
+            final ZonedDateTime since = invocation.getArgument(0);
+            return revocation.getRevokedAt().isBefore(since) ? Collections.emptyList() : Collections.singletonList(revocation);
+        });
+
+        assertRejected(newAuthenticator(), accessToken);
+    }
+
+    private StatelessTokenAuthenticator newAuthenticator() {
+        final StatelessTokenAuthenticator authenticator = new StatelessTokenAuthenticator();
+        ReflectionTestUtils.setField(authenticator, "userDao", userDao);
+        ReflectionTestUtils.setField(authenticator, "tokenRevocationRegistry", new TokenRevocationRegistry());
+        ReflectionTestUtils.setField(authenticator, "mode", StatelessTokenAuthenticator.STATELESS_MODE);
+        ReflectionTestUtils.setField(authenticator, "signingKey", "test-signing-key");
+        ReflectionTestUtils.setField(authenticator, "tokenLifetimeHours", 8L);
+        ReflectionTestUtils.setField(authenticator, "revocationPollOverlapSeconds", 60L);
+        authenticator.init();
+        return authenticator;
+    }
+
+    private void assertRejected(final StatelessTokenAuthenticator authenticator, final String accessToken) {
+        try {
+            authenticator.authenticate(accessToken, "User is signed out");
+            fail("The signed out token was accepted");
+        } catch (AuthorizationFailedException e) {
+            assertEquals("ATHR-002", e.getCode());
+        }
+    }
+}
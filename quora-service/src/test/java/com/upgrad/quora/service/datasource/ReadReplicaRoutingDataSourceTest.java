@@ -0,0 +1,76 @@
+package com.upgrad.quora.service.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ReadReplicaRoutingDataSourceTest {
+
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+
+    private DataSource primaryDataSource;
+    private HikariDataSource replicaDataSource;
+    private Replica replica;
+    private ReadReplicaRoutingDataSource routingDataSource;
+
+    @Before
+    public void setUp() throws SQLException {
+        primaryDataSource = mock(DataSource.class);
+        when(primaryDataSource.getConnection()).thenReturn(primaryConnection);
+        replicaDataSource = mock(HikariDataSource.class);
+        when(replicaDataSource.getConnection()).thenReturn(replicaConnection);
+        replica = new Replica("replica-0", replicaDataSource);
+        replica.setAvailable(true);
+        final ReplicaPool replicaPool = new ReplicaPool(primaryDataSource, Arrays.asList(replica), 5, 2, new SimpleMeterRegistry());
+        routingDataSource = new ReadReplicaRoutingDataSource(primaryDataSource, replicaPool);
+    }
+
+    @After
+    public void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    //This test case passes when a read only transaction gets its connection from the available replica.
+    @Test
+    public void readOnlyTransactionIsRoutedToReplica() throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertSame(replicaConnection, routingDataSource.getConnection());
+    }
+
+    //This test case passes when a read write transaction gets its connection from the primary.
+    @Test
+    public void readWriteTransactionIsRoutedToPrimary() throws SQLException {
+        assertSame(primaryConnection, routingDataSource.getConnection());
+    }
+
+    //This test case passes when a read only transaction falls back to the primary as no replica is available.
+    @Test
+    public void readOnlyTransactionFallsBackToPrimaryWithoutAvailableReplica() throws SQLException {
+        replica.setAvailable(false);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertSame(primaryConnection, routingDataSource.getConnection());
+    }
+
+    //This test case passes when a read only transaction falls back to the primary as the replica fails to hand out a connection, which leaves the replica out.
+    @Test
+    public void readOnlyTransactionFallsBackToPrimaryOnReplicaFailure() throws SQLException {
+        when(replicaDataSource.getConnection()).thenThrow(new SQLException("Connection refused"));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertSame(primaryConnection, routingDataSource.getConnection());
+        assertFalse(replica.isAvailable());
+    }
+}
@@ -0,0 +1,124 @@
+package com.upgrad.quora.service.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ReplicaPoolTest {
+
+    private static final String PRIMARY_LSN = "0/3000060";
+
+    private DataSource primaryDataSource;
+    private ResultSet replicaStatus;
+    private PreparedStatement replicaStatement;
+    private Replica replica;
+    private ReplicaPool replicaPool;
+
+    @Before
+    public void setUp() throws SQLException {
+        final ResultSet primaryLsn = mock(ResultSet.class);
+        when(primaryLsn.getString(1)).thenReturn(PRIMARY_LSN);
+        final Statement primaryStatement = mock(Statement.class);
+        when(primaryStatement.executeQuery(anyString())).thenReturn(primaryLsn);
+        final Connection primaryConnection = mock(Connection.class);
+        when(primaryConnection.createStatement()).thenReturn(primaryStatement);
+        primaryDataSource = mock(DataSource.class);
+        when(primaryDataSource.getConnection()).thenReturn(primaryConnection);
+
+        replicaStatus = mock(ResultSet.class);
+        replicaStatement = mock(PreparedStatement.class);
+        when(replicaStatement.executeQuery()).thenReturn(replicaStatus);
+        final Connection replicaConnection = mock(Connection.class);
+        when(replicaConnection.prepareStatement(anyString())).thenReturn(replicaStatement);
+        final HikariDataSource replicaDataSource = mock(HikariDataSource.class);
+        when(replicaDataSource.getConnection()).thenReturn(replicaConnection);
+
+        replica = new Replica("replica-0", replicaDataSource);
+        replicaPool = new ReplicaPool(primaryDataSource, Arrays.asList(replica), 5, 2, new SimpleMeterRegistry());
+    }
+
+    //This test case passes when a streaming standby which has replayed the WAL position of the primary serves the reads without lag.
+    @Test
+    public void caughtUpStandbyIsAvailable() throws SQLException {
+        givenReplicaStatus(true, true, true, 0);
+        replicaPool.checkHealth();
+        verify(replicaStatement).setString(1, PRIMARY_LSN);
+        assertTrue(replica.isAvailable());
+        assertEquals(0, replica.getLagSeconds(), 0);
+        assertSame(replica, replicaPool.next());
+    }
+
+    //This test case passes when a standby behind the primary is measured by the time since its last replayed transaction and left out beyond the maximum lag.
+    @Test
+    public void standbyBehindPrimaryBeyondMaxLagIsLeftOut() throws SQLException {
+        givenReplicaStatus(true, true, false, 12.5);
+        replicaPool.checkHealth();
+        assertFalse(replica.isAvailable());
+        assertEquals(12.5, replica.getLagSeconds(), 0);
+        assertNull(replicaPool.next());
+    }
+
+    //This test case passes when a standby behind the primary within the maximum lag still serves the reads.
+    @Test
+    public void standbyBehindPrimaryWithinMaxLagIsAvailable() throws SQLException {
+        givenReplicaStatus(true, true, false, 1.5);
+        replicaPool.checkHealth();
+        assertTrue(replica.isAvailable());
+        assertEquals(1.5, replica.getLagSeconds(), 0);
+    }
+
+    //This test case passes when a standby whose WAL receiver has stopped streaming is left out, even if it has replayed all it received.
+    @Test
+    public void standbyWithoutStreamingReceiverIsLeftOut() throws SQLException {
+        replica.setAvailable(true);
+        givenReplicaStatus(true, false, false, 0);
+        replicaPool.checkHealth();
+        assertFalse(replica.isAvailable());
+    }
+
+    //This test case passes when an instance which is not a standby of the primary is left out.
+    @Test
+    public void instanceNotInRecoveryIsLeftOut() throws SQLException {
+        replica.setAvailable(true);
+        givenReplicaStatus(false, false, false, 0);
+        replicaPool.checkHealth();
+        assertFalse(replica.isAvailable());
+    }
+
+    //This test case passes when the replicas are left out as the WAL position of the primary can't be read.
+    @Test
+    public void replicasAreLeftOutWithoutPrimaryPosition() throws SQLException {
+        replica.setAvailable(true);
+        when(primaryDataSource.getConnection()).thenThrow(new SQLException("Connection refused"));
+        replicaPool.checkHealth();
+        assertFalse(replica.isAvailable());
+    }
+
+    private void givenReplicaStatus(final boolean inRecovery, final boolean streaming, final boolean caughtUp,
+                                    final double secondsSinceLastReplay) throws SQLException {
+        when(replicaStatus.getBoolean(1)).thenReturn(inRecovery);
+        when(replicaStatus.getBoolean(2)).thenReturn(streaming);
+        when(replicaStatus.getBoolean(3)).thenReturn(caughtUp);
+        when(replicaStatus.getDouble(4)).thenReturn(secondsSinceLastReplay);
+        when(replicaStatus.wasNull()).thenReturn(false);
+    }
+}
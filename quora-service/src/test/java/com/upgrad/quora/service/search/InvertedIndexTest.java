@@ -0,0 +1,74 @@
+package com.upgrad.quora.service.search;
+
+import com.upgrad.quora.service.dto.QuestionSummary;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class InvertedIndexTest {
+
+    private InvertedIndex index;
+
+    @Before
+    public void setUp() {
+        index = new InvertedIndex();
+        index.add(question(3, "How do I learn Java streams?"));
+        index.add(question(1, "Java or Kotlin for Android?"));
+        index.add(question(2, "Is Kotlin replacing Java, java everywhere?"));
+        index.add(question(4, "Best hiking trails"));
+    }
+
+    //This test case passes when the questions containing all the terms are returned, the one with the most occurrences first.
+    @Test
+    public void searchesAllTerms() {
+        assertEquals(Arrays.asList(2, 1), ids(index.search("kotlin java", true, 10, 0)));
+        assertEquals(Collections.emptyList(), ids(index.search("kotlin hiking", true, 10, 0)));
+        assertEquals(Collections.emptyList(), ids(index.search("kotlin unknown", true, 10, 0)));
+    }
+
+    //This test case passes when the questions containing any of the terms are returned, best match first, limited and offset.
+    @Test
+    public void searchesAnyTerm() {
+        assertEquals(Arrays.asList(2, 1, 4, 3), ids(index.search("kotlin java hiking", false, 10, 0)));
+        assertEquals(Arrays.asList(1, 4), ids(index.search("kotlin java hiking", false, 2, 1)));
+    }
+
+    //This test case passes when an edited question is searched by its new content only and a removed question is not searched anymore.
+    @Test
+    public void searchesEditedAndRemovedQuestions() {
+        index.add(question(1, "Swift for iOS?"));
+        index.remove(3);
+
+        assertEquals(Collections.singletonList(2), ids(index.search("java", true, 10, 0)));
+        assertEquals(Collections.singletonList(1), ids(index.search("swift", true, 10, 0)));
+        assertEquals(Collections.emptyList(), ids(index.search("streams", true, 10, 0)));
+        assertEquals(3, index.questionCount());
+    }
+
+    //This test case passes when the search results are unchanged by merging the out of order postings.
+    @Test
+    public void compactKeepsSearchResults() {
+        final List<Integer> before = ids(index.search("kotlin java hiking", false, 10, 0));
+        index.compact();
+        assertEquals(before, ids(index.search("kotlin java hiking", false, 10, 0)));
+    }
+
+    private static QuestionSummary question(final int id, final String content) {
+        return new QuestionSummary(id, "00000000-0000-0000-0000-00000000000" + id, content, ZonedDateTime.now());
+    }
+
+    private static List<Integer> ids(final List<QuestionSummary> questions) {
+        final List<Integer> ids = new ArrayList<>();
+        for (QuestionSummary question : questions) {
+            ids.add(question.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,132 @@
+package com.upgrad.quora.service.search;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PostingListTest {
+
+    //This test case passes when the postings appended in ascending order, with gaps and frequencies beyond one byte, are decoded as added.
+    @Test
+    public void roundTripsAscendingPostings() {
+        final PostingList postingList = new PostingList();
+        postingList.add(1, 1);
+        postingList.add(2, 300);
+        postingList.add(200, 2);
+        postingList.add(70000, 1);
+        postingList.add(Integer.MAX_VALUE, 5);
+
+        assertEquals(5, postingList.size());
+        assertEquals(Arrays.asList(1, 2, 200, 70000, Integer.MAX_VALUE), ids(postingList));
+        assertEquals(Arrays.asList(1, 300, 2, 1, 5), termFrequencies(postingList));
+    }
+
+    //This test case passes when the postings added out of order are returned in ascending order, before and after they are merged.
+    @Test
+    public void mergesOutOfOrderPostings() {
+        final PostingList postingList = new PostingList();
+        postingList.add(10, 1);
+        postingList.add(30, 3);
+        postingList.add(20, 2);
+        postingList.add(5, 4);
+
+        assertEquals(4, postingList.size());
+        assertEquals(Arrays.asList(5, 10, 20, 30), ids(postingList));
+        assertEquals(Arrays.asList(4, 1, 2, 3), termFrequencies(postingList));
+
+        postingList.compact();
+        assertEquals(Arrays.asList(5, 10, 20, 30), ids(postingList));
+        assertEquals(Arrays.asList(4, 1, 2, 3), termFrequencies(postingList));
+    }
+
+    //This test case passes when the removed postings, appended or added out of order, are left out and a removed question can be added back.
+    @Test
+    public void removesPostings() {
+        final PostingList postingList = new PostingList();
+        postingList.add(10, 1);
+        postingList.add(20, 2);
+        postingList.add(15, 3);
+        postingList.remove(10);
+        postingList.remove(15);
+
+        assertEquals(1, postingList.size());
+        assertEquals(Collections.singletonList(20), ids(postingList));
+
+        postingList.add(10, 7);
+        assertEquals(2, postingList.size());
+        assertEquals(Arrays.asList(10, 20), ids(postingList));
+        assertEquals(Arrays.asList(7, 2), termFrequencies(postingList));
+
+        postingList.remove(10);
+        postingList.remove(20);
+        postingList.compact();
+        assertEquals(0, postingList.size());
+        assertFalse(postingList.cursor().next());
+    }
+
+    //This test case passes when the postings stay in order through enough out of order edits to be merged into the encoded postings on the way.
+    @Test
+    public void keepsOrderThroughManyOutOfOrderEdits() {
+        final PostingList postingList = new PostingList();
+        final List<Integer> expected = new ArrayList<>();
+        postingList.add(100000, 1);
+        expected.add(100000);
+        for (int id = 99999; id > 99000; id--) {
+            postingList.add(id, 1);
+            expected.add(id);
+        }
+        for (int id = 99001; id < 100000; id += 3) {
+            postingList.remove(id);
+            expected.remove(Integer.valueOf(id));
+        }
+        Collections.sort(expected);
+
+        assertEquals(expected.size(), postingList.size());
+        assertEquals(expected, ids(postingList));
+    }
+
+    //This test case passes when the cursor advances to the first posting at or after the target, across the encoded postings and the out of order ones.
+    @Test
+    public void advancesToTarget() {
+        final PostingList postingList = new PostingList();
+        postingList.add(10, 1);
+        postingList.add(40, 1);
+        postingList.add(25, 1);
+
+        final PostingList.Cursor cursor = postingList.cursor();
+        assertTrue(cursor.advance(10));
+        assertEquals(10, cursor.id());
+        assertTrue(cursor.advance(10));
+        assertEquals(10, cursor.id());
+        assertTrue(cursor.advance(11));
+        assertEquals(25, cursor.id());
+        assertTrue(cursor.advance(26));
+        assertEquals(40, cursor.id());
+        assertFalse(cursor.advance(41));
+    }
+
+    private static List<Integer> ids(final PostingList postingList) {
+        final List<Integer> ids = new ArrayList<>();
+        final PostingList.Cursor cursor = postingList.cursor();
+        while (cursor.next()) {
+            ids.add(cursor.id());
+        }
+        return ids;
+    }
+
+    private static List<Integer> termFrequencies(final PostingList postingList) {
+        final List<Integer> termFrequencies = new ArrayList<>();
+        final PostingList.Cursor cursor = postingList.cursor();
+        while (cursor.next()) {
+            termFrequencies.add(cursor.termFrequency());
+        }
+        return termFrequencies;
+    }
+}